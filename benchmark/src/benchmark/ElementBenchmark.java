@@ -0,0 +1,68 @@
+package benchmark;
+
+import entity.Element;
+import entity.LayoutTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element parsing from layout tags and field names of every naming style, names are cached per element
+ * so every invocation names new elements
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ElementBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int ids;
+
+    @Param({"false", "true"})
+    public boolean nested;
+
+    private List<LayoutTag> mTags;
+
+    @Setup
+    public void setUp() {
+        mTags = SyntheticLayouts.createTags(ids, nested);
+    }
+
+    @Benchmark
+    public List<Element> parse() {
+        return SyntheticLayouts.createElements(mTags);
+    }
+
+    @Benchmark
+    public void parseAndName(Style style, Blackhole blackhole) {
+        for (Element element : SyntheticLayouts.createElements(mTags)) {
+            element.setFieldNameType(style.fieldNameType);
+            blackhole.consume(element.getFieldName());
+        }
+    }
+
+    /**
+     * Naming style, a separate state so that parse() does not run once per style
+     */
+    @State(Scope.Benchmark)
+    public static class Style {
+
+        @Param({"1", "2", "3"})
+        public int fieldNameType;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark;
+
+import entity.LayoutTag;
+import layout.LayoutReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StAX pass of LayoutReader over a layout in memory, as the CLI reads every layout file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LayoutReaderBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int ids;
+
+    @Param({"false", "true"})
+    public boolean nested;
+
+    private byte[] mLayout;
+
+    @Setup
+    public void setUp() {
+        mLayout = SyntheticLayouts.createBytes(ids, nested);
+    }
+
+    @Benchmark
+    public List<LayoutTag> read() throws IOException {
+        return LayoutReader.read(new ByteArrayInputStream(mLayout), "synthetic.xml");
+    }
+}
@@ -0,0 +1,119 @@
+package benchmark;
+
+import entity.Element;
+import entity.LayoutTag;
+import layout.LayoutReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layouts generated for the benchmarks, every fifth view of the same kind: text, button, edit text with hint,
+ * image and custom view with click attributes. Nested layouts put every ten views in a frame, frames are nested
+ * up to MAX_DEPTH deep.
+ */
+public class SyntheticLayouts {
+
+    private static final int MAX_DEPTH = 8;
+    private static final String[] VIEWS = {"TextView", "Button", "EditText", "ImageView", "com.example.widget.BadgeView"};
+
+    /**
+     * Layout XML
+     *
+     * @param ids    number of views with ID
+     * @param nested views in nested frames instead of a single level
+     * @return
+     */
+    public static String create(int ids, boolean nested) {
+        StringBuilder sb = new StringBuilder(ids * 96);
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<LinearLayout xmlns:android=\"http://schemas.android.com/apk/res/android\"\n");
+        sb.append("    android:layout_width=\"match_parent\"\n");
+        sb.append("    android:layout_height=\"wrap_content\"\n");
+        sb.append("    android:orientation=\"vertical\">\n");
+        int depth = 0;
+        for (int i = 0; i < ids; i++) {
+            if (nested && i % 10 == 0) {
+                if (depth == MAX_DEPTH) {
+                    for (; depth > 0; depth--) {
+                        indent(sb, depth).append("</FrameLayout>\n");
+                    }
+                }
+                depth++;
+                indent(sb, depth).append("<FrameLayout android:layout_width=\"match_parent\" android:layout_height=\"wrap_content\">\n");
+            }
+            appendView(sb, i, depth + 1);
+        }
+        for (; depth > 0; depth--) {
+            indent(sb, depth).append("</FrameLayout>\n");
+        }
+        sb.append("</LinearLayout>\n");
+        return sb.toString();
+    }
+
+    public static byte[] createBytes(int ids, boolean nested) {
+        try {
+            return create(ids, nested).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Tags of the layout as the CLI reads them
+     *
+     * @param ids
+     * @param nested
+     * @return
+     */
+    public static List<LayoutTag> createTags(int ids, boolean nested) {
+        try {
+            return LayoutReader.read(new ByteArrayInputStream(createBytes(ids, nested)), "synthetic.xml");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Elements of all tags with ID
+     *
+     * @param tags
+     * @return
+     */
+    public static ArrayList<Element> createElements(List<LayoutTag> tags) {
+        ArrayList<Element> elements = new ArrayList<Element>(tags.size());
+        for (LayoutTag tag : tags) {
+            if (tag.id != null) {
+                elements.add(new Element(tag));
+            }
+        }
+        return elements;
+    }
+
+    private static void appendView(StringBuilder sb, int index, int depth) {
+        String view = VIEWS[index % VIEWS.length];
+        indent(sb, depth).append('<').append(view).append('\n');
+        indent(sb, depth + 1).append("android:id=\"@+id/section_").append(index / 10).append("_item_").append(index).append("\"\n");
+        indent(sb, depth + 1).append("android:layout_width=\"wrap_content\"\n");
+        indent(sb, depth + 1).append("android:layout_height=\"wrap_content\"");
+        if (view.equals("EditText")) {
+            sb.append('\n');
+            indent(sb, depth + 1).append("android:hint=\"Value ").append(index).append('"');
+        } else if (view.indexOf('.') >= 0) {
+            sb.append('\n');
+            indent(sb, depth + 1).append("android:clickable=\"true\"\n");
+            indent(sb, depth + 1).append("android:longClickable=\"true\"");
+        }
+        sb.append(" />\n");
+    }
+
+    private static StringBuilder indent(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("    ");
+        }
+        return sb;
+    }
+}
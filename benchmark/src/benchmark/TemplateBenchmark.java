@@ -0,0 +1,70 @@
+package benchmark;
+
+import entity.Element;
+import entity.GenerateOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import template.Template;
+import template.ViewHolderSource;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model building and rendering of the bundled templates, everything the plugin does before the PSI insertion
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplateBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int ids;
+
+    @Param({"false", "true"})
+    public boolean nested;
+
+    @Param({ViewHolderSource.JAVA_TEMPLATE, ViewHolderSource.RECYCLER_JAVA_TEMPLATE,
+            ViewHolderSource.KOTLIN_TEMPLATE, ViewHolderSource.RECYCLER_KOTLIN_TEMPLATE})
+    public String template;
+
+    private Template mTemplate;
+    private ArrayList<Element> mElements;
+    private GenerateOptions mOptions;
+
+    @Setup
+    public void setUp() {
+        mTemplate = ViewHolderSource.getDefaultTemplate(template);
+        mElements = SyntheticLayouts.createElements(SyntheticLayouts.createTags(ids, nested));
+        for (Element element : mElements) {
+            element.setFieldNameType(3);
+        }
+        mOptions = new GenerateOptions();
+        mOptions.autoImplements = true;
+        mOptions.bindByPath = nested;
+        mOptions.recyclerView = template.startsWith("Recycler");
+    }
+
+    @Benchmark
+    public String render() {
+        return ViewHolderSource.create(mTemplate, "SyntheticViewHolder", "SyntheticViewModel", "synthetic.xml",
+                mElements, mOptions, new ViewHolderSource.ClassLookup() {
+                    @Override
+                    public boolean isKnown(String qualifiedName) {
+                        return true;
+                    }
+                }).render();
+    }
+}
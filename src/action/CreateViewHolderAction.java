@@ -5,25 +5,35 @@ import com.intellij.codeInsight.generation.actions.BaseGenerateAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiUtilBase;
 import entity.Element;
+import entity.GenerateOptions;
 import form.EntryList;
 import listener.ICancelListener;
 import listener.IConfirmListener;
+import org.jetbrains.annotations.NotNull;
+import service.GenerationTelemetry;
+import service.IdCollisionAnalyzer;
 import utils.CreateViewHolder;
 import utils.CreateViewHolderConfig;
-import utils.StringUtils;
+import utils.KotlinCreateViewHolder;
 import utils.Utils;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.List;
 
 public class CreateViewHolderAction extends BaseGenerateAction implements IConfirmListener, ICancelListener {
 
     protected JFrame mDialog;
+    protected String mLayoutFileName;
 
     @SuppressWarnings("unused")
     public CreateViewHolderAction() {
@@ -35,6 +45,14 @@ public class CreateViewHolderAction extends BaseGenerateAction implements IConfi
         super(handler);
     }
 
+    @Override
+    protected boolean isValidForFile(@NotNull Project project, @NotNull Editor editor, @NotNull PsiFile file) {
+        if (Utils.isKotlinFile(file)) {
+            return getKotlinTargetClass(editor, file) != null;
+        }
+        return super.isValidForFile(project, editor, file);
+    }
+
     @Override
     public void actionPerformed(AnActionEvent event) {
         Project project = event.getData(PlatformDataKeys.PROJECT);
@@ -44,28 +62,103 @@ public class CreateViewHolderAction extends BaseGenerateAction implements IConfi
     }
 
     @Override
-    public void actionPerformedImpl(Project project, Editor editor) {
-        PsiFile file = PsiUtilBase.getPsiFileInEditor(editor, project);
-        PsiFile layout = Utils.getLayoutFileFromCaret(editor, file);
-
-        if (layout == null) {
-            Utils.showErrorNotification(project, "No layout found");
-            return; // no layout found
-        }
-        ArrayList<Element> elements = Utils.getIDsFromLayout(layout);
-        if (!elements.isEmpty()) {
-            showDialog(project, editor, layout.getName(), elements);
-        } else {
-            Utils.showErrorNotification(project, "No IDs found in layout");
+    public void actionPerformedImpl(final Project project, final Editor editor) {
+        final PsiFile file = PsiUtilBase.getPsiFileInEditor(editor, project);
+        if (file == null) {
+            return;
         }
+        final int offset = editor.getCaretModel().getOffset();
+
+        // resolve and parse the layout in background, the dialog is shown once elements are ready
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Collecting layout IDs", true) {
+
+            private PsiFile mLayout;
+            private ArrayList<Element> mElements;
+
+            @Override
+            public void run(@NotNull final ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                final GenerationTelemetry telemetry = GenerationTelemetry.getInstance(project);
+                if (DumbService.isDumb(project)) {
+                    indicator.setText("Waiting for indexing to finish");
+                }
+
+                DumbService.getInstance(project).runReadActionInSmartMode(new Runnable() {
+                    @Override
+                    public void run() {
+                        indicator.checkCanceled();
+                        if (!file.isValid()) {
+                            return;
+                        }
+
+                        indicator.setText("Resolving layout");
+                        GenerationTelemetry.Measurement resolve = telemetry.start("resolve layout");
+                        mLayout = Utils.getLayoutFileAtOffset(file, offset);
+                        resolve.stop(0);
+                        if (mLayout == null) {
+                            return; // no layout found
+                        }
+
+                        indicator.setText("Collecting IDs from " + mLayout.getName());
+                        GenerationTelemetry.Measurement collect = telemetry.start("collect IDs");
+                        mElements = Utils.getIDsFromLayout(mLayout);
+                        collect.stop(mElements.size());
+                    }
+                });
+            }
+
+            @Override
+            public void onSuccess() {
+                if (editor.isDisposed() || !file.isValid()) {
+                    return;
+                }
+                if (mLayout == null) {
+                    Utils.showErrorNotification(project, "No layout found");
+                    return;
+                }
+                if (mElements != null && !mElements.isEmpty()) {
+                    mLayoutFileName = mLayout.getName();
+                    showDialog(project, editor, mLayout.getName(), mElements);
+                } else {
+                    Utils.showErrorNotification(project, "No IDs found in layout");
+                }
+            }
+        });
     }
 
-    public void onConfirm(Project project, Editor editor, String viewHolderName, ArrayList<Element> elements, String fieldNamePrefix, boolean autoImplements) {
+    public void onConfirm(final Project project, Editor editor, String viewHolderName, final ArrayList<Element> elements, GenerateOptions options) {
         PsiFile file = PsiUtilBase.getPsiFileInEditor(editor, project);
         if (file == null) {
             return;
         }
-        PsiFile layout = Utils.getLayoutFileFromCaret(editor, file);
+
+        // same field generated twice would not compile, the dialog stays open to change the selection or naming
+        final GenerationTelemetry telemetry = GenerationTelemetry.getInstance(project);
+        final IdCollisionAnalyzer analyzer = IdCollisionAnalyzer.getInstance(project);
+        GenerationTelemetry.Measurement check = telemetry.start("find collisions");
+        List<String> collisions = analyzer.findCollisions(elements);
+        check.stop(elements.size());
+        if (!collisions.isEmpty()) {
+            // layouts declaring the repeated IDs are only needed for the report, scan them now
+            boolean scanned = ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+                @Override
+                public void run() {
+                    GenerationTelemetry.Measurement scan = telemetry.start("scan layout IDs");
+                    analyzer.scan(ProgressManager.getInstance().getProgressIndicator());
+                    scan.stop(elements.size());
+                }
+            }, "Scanning Layout IDs", true, project);
+            if (scanned) {
+                collisions = analyzer.findCollisions(elements);
+            }
+
+            StringBuilder sb = new StringBuilder("Field name collisions:");
+            for (String collision : collisions) {
+                sb.append("<br/>").append(collision);
+            }
+            Utils.showErrorNotification(project, sb.toString());
+            return;
+        }
 
         closeDialog();
 
@@ -78,10 +171,17 @@ public class CreateViewHolderAction extends BaseGenerateAction implements IConfi
         }
 
         if (cnt > 0) { // generate injections
-            if (layout == null) {
+            if (mLayoutFileName == null) {
                 return;
             }
-            new CreateViewHolder(file, getTargetClass(editor, file), "Generate Injections", elements, layout.getName(), viewHolderName, fieldNamePrefix, autoImplements).execute();
+            if (Utils.isKotlinFile(file)) {
+                PsiElement clazz = getKotlinTargetClass(editor, file);
+                if (clazz != null) {
+                    new KotlinCreateViewHolder(file, clazz, "Generate Injections", elements, mLayoutFileName, viewHolderName, options).execute();
+                }
+                return;
+            }
+            new CreateViewHolder(file, getTargetClass(editor, file), "Generate Injections", elements, mLayoutFileName, viewHolderName, options).execute();
         } else { // just notify user about no element selected
             Utils.showInfoNotification(project, "No injection was selected");
         }
@@ -96,18 +196,13 @@ public class CreateViewHolderAction extends BaseGenerateAction implements IConfi
         if (file == null) {
             return;
         }
-        PsiClass clazz = getTargetClass(editor, file);
+        PsiElement clazz = Utils.isKotlinFile(file) ? getKotlinTargetClass(editor, file) : getTargetClass(editor, file);
 
         if (clazz == null) {
             return;
         }
 
-        String[] names = viewHolderName.split("_");
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < names.length; i++) {
-            sb.append(StringUtils.firstToUpperCase(names[i]));
-        }
-        viewHolderName = sb.toString().replaceAll(".xml", "");
+        viewHolderName = Utils.getViewHolderName(viewHolderName);
         EntryList panel = new EntryList(project, editor, viewHolderName, elements, this, this);
 
         mDialog = new JFrame();
@@ -120,6 +215,10 @@ public class CreateViewHolderAction extends BaseGenerateAction implements IConfi
         mDialog.setVisible(true);
     }
 
+    protected PsiElement getKotlinTargetClass(Editor editor, PsiFile file) {
+        return Utils.findKotlinClass(file.findElementAt(editor.getCaretModel().getOffset()));
+    }
+
     protected void closeDialog() {
         if (mDialog == null) {
             return;
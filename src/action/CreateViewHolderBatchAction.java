@@ -0,0 +1,328 @@
+package action;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.FileTypeManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiAnonymousClass;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.Processor;
+import entity.Element;
+import org.jetbrains.annotations.NotNull;
+import service.CreateViewHolderSettings;
+import service.IdCollisionAnalyzer;
+import utils.CreateViewHolder;
+import utils.KotlinCreateViewHolder;
+import utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generate ViewHolders for every R.layout reference in Java and Kotlin files of selected file, module or project
+ */
+public class CreateViewHolderBatchAction extends AnAction {
+
+    @Override
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(event.getProject() != null);
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent event) {
+        final Project project = event.getProject();
+        if (project == null) {
+            return;
+        }
+
+        // narrowest selected scope
+        final GlobalSearchScope scope;
+        final String scopeName;
+        PsiFile file = event.getData(CommonDataKeys.PSI_FILE);
+        Module module = event.getData(LangDataKeys.MODULE);
+        if ((file instanceof PsiJavaFile || Utils.isKotlinFile(file)) && file.getVirtualFile() != null) {
+            scope = GlobalSearchScope.fileScope(file);
+            scopeName = file.getName();
+        } else if (module != null) {
+            scope = module.getModuleScope(false);
+            scopeName = "module " + module.getName();
+        } else {
+            scope = GlobalSearchScope.projectScope(project);
+            scopeName = "project " + project.getName();
+        }
+
+        int answer = Messages.showYesNoDialog(project, "Create ViewHolders for all layouts referenced in " + scopeName + "?",
+                "Create ViewHolders", Messages.getQuestionIcon());
+        if (answer != Messages.YES) {
+            return;
+        }
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Collecting layouts", true) {
+
+            private final List<BatchItem> mItems = Collections.synchronizedList(new ArrayList<BatchItem>());
+            private final List<String> mFailures = Collections.synchronizedList(new ArrayList<String>());
+            private final Set<VirtualFile> mLayouts = Collections.synchronizedSet(new HashSet<VirtualFile>());
+            private final CreateViewHolderSettings.Snapshot mSettings = CreateViewHolderSettings.getInstance(project).getSnapshot();
+
+            @Override
+            public void run(@NotNull final ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                indicator.setText("Collecting layouts");
+                final List<VirtualFile> files = DumbService.getInstance(project).runReadActionInSmartMode(new Computable<List<VirtualFile>>() {
+                    @Override
+                    public List<VirtualFile> compute() {
+                        List<VirtualFile> files = new ArrayList<VirtualFile>(FileTypeIndex.getFiles(JavaFileType.INSTANCE, scope));
+                        FileType kotlin = FileTypeManager.getInstance().findFileTypeByName("Kotlin");
+                        if (kotlin != null) {
+                            files.addAll(FileTypeIndex.getFiles(kotlin, scope));
+                        }
+                        return files;
+                    }
+                });
+
+                final AtomicInteger done = new AtomicInteger();
+                JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, false, new Processor<VirtualFile>() {
+                    @Override
+                    public boolean process(final VirtualFile file) {
+                        indicator.setText2(file.getName());
+                        ApplicationManager.getApplication().runReadAction(new Runnable() {
+                            @Override
+                            public void run() {
+                                collect(project, file);
+                            }
+                        });
+                        indicator.setFraction((double) done.incrementAndGet() / files.size());
+                        return true;
+                    }
+                });
+
+                // layouts declaring the repeated IDs are reported from the collected layouts only
+                indicator.setText("Scanning layout IDs");
+                indicator.setText2(null);
+                IdCollisionAnalyzer analyzer = IdCollisionAnalyzer.getInstance(project);
+                analyzer.scan(mLayouts, indicator);
+                synchronized (mItems) {
+                    for (Iterator<BatchItem> iterator = mItems.iterator(); iterator.hasNext(); ) {
+                        BatchItem item = iterator.next();
+                        List<String> collisions = analyzer.findCollisions(item.elements);
+                        if (!collisions.isEmpty()) {
+                            // holder with the same field twice would not compile
+                            for (String collision : collisions) {
+                                mFailures.add(item.layoutFileName + ": " + collision);
+                            }
+                            iterator.remove();
+                        }
+                    }
+                }
+            }
+
+            private void collect(Project project, VirtualFile virtualFile) {
+                PsiFile file = PsiManager.getInstance(project).findFile(virtualFile);
+                if (file == null) {
+                    return;
+                }
+
+                Set<String> generated = new HashSet<String>();
+                for (LayoutReference reference : findLayoutReferences(file)) {
+                    PsiElement clazz = reference.clazz;
+                    if (!generated.add(clazz.getTextOffset() + "#" + reference.layoutName)) {
+                        continue; // same layout referenced more times by one class
+                    }
+
+                    try {
+                        PsiFile layout = Utils.findLayoutResource(file, project, reference.layoutName);
+                        if (layout == null) {
+                            mFailures.add(file.getName() + ": layout " + reference.layoutName + " not found");
+                            continue;
+                        }
+                        ArrayList<Element> elements = Utils.getIDsFromLayout(layout);
+                        if (elements.isEmpty()) {
+                            continue; // nothing to generate
+                        }
+                        mSettings.applyDefaults(elements);
+                        if (layout.getVirtualFile() != null) {
+                            mLayouts.add(layout.getVirtualFile());
+                        }
+
+                        BatchItem item = new BatchItem();
+                        item.target = SmartPointerManager.getInstance(project).createSmartPsiElementPointer(clazz);
+                        item.layoutFileName = layout.getName();
+                        item.viewHolderName = Utils.getViewHolderName(layout.getName());
+                        item.elements = elements;
+                        mItems.add(item);
+                    } catch (ProcessCanceledException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        mFailures.add(file.getName() + ": " + reference.layoutName + " " + e.getMessage());
+                    }
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (mItems.isEmpty()) {
+                    report(project, 0, mFailures);
+                    return;
+                }
+
+                final Set<PsiFile> files = new LinkedHashSet<PsiFile>();
+                for (BatchItem item : mItems) {
+                    PsiElement clazz = item.target.getElement();
+                    if (clazz != null) {
+                        files.add(clazz.getContainingFile());
+                    }
+                }
+
+                final AtomicInteger created = new AtomicInteger();
+                WriteCommandAction.runWriteCommandAction(project, "Create ViewHolders", null, new Runnable() {
+                    @Override
+                    public void run() {
+                        for (BatchItem item : mItems) {
+                            PsiElement clazz = item.target.getElement();
+                            if (clazz == null) {
+                                mFailures.add(item.viewHolderName + ": class is not valid anymore");
+                                continue;
+                            }
+
+                            try {
+                                if (clazz instanceof PsiClass) {
+                                    new CreateViewHolder(clazz.getContainingFile(), (PsiClass) clazz, "Create ViewHolders", item.elements,
+                                            item.layoutFileName, item.viewHolderName, mSettings.createOptions()).generate();
+                                } else {
+                                    new KotlinCreateViewHolder(clazz.getContainingFile(), clazz, "Create ViewHolders", item.elements,
+                                            item.layoutFileName, item.viewHolderName, mSettings.createOptions()).generate();
+                                }
+                                created.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                mFailures.add(item.viewHolderName + ": " + e.getMessage());
+                            }
+                        }
+                    }
+                }, files.toArray(new PsiFile[files.size()]));
+
+                report(project, created.get(), mFailures);
+            }
+        });
+    }
+
+    private static void report(Project project, int created, List<String> failures) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(created).append(" ViewHolders created");
+        if (failures.isEmpty()) {
+            Utils.showInfoNotification(project, sb.toString());
+            return;
+        }
+
+        sb.append(", ").append(failures.size()).append(" failed:");
+        for (String failure : failures) {
+            sb.append("<br/>").append(failure);
+        }
+        Utils.showErrorNotification(project, sb.toString());
+    }
+
+    /**
+     * Find all R.layout.* references and classes containing them
+     *
+     * @param file
+     * @return
+     */
+    private static List<LayoutReference> findLayoutReferences(PsiFile file) {
+        final List<LayoutReference> references = new ArrayList<LayoutReference>();
+        if (Utils.isKotlinFile(file)) {
+            file.accept(new PsiRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    super.visitElement(element);
+
+                    if (!Utils.isElementType(element, "DOT_QUALIFIED_EXPRESSION")
+                            || element.getFirstChild() == null || !"R.layout".equals(element.getFirstChild().getText())) {
+                        return; // not layout reference
+                    }
+
+                    PsiElement clazz = Utils.findKotlinClass(element);
+                    if (clazz == null) {
+                        return; // no class to generate into
+                    }
+
+                    LayoutReference reference = new LayoutReference();
+                    reference.clazz = clazz;
+                    reference.layoutName = element.getLastChild().getText();
+                    references.add(reference);
+                }
+            });
+            return references;
+        }
+
+        file.accept(new JavaRecursiveElementVisitor() {
+            @Override
+            public void visitReferenceExpression(PsiReferenceExpression expression) {
+                super.visitReferenceExpression(expression);
+
+                PsiElement qualifier = expression.getQualifier();
+                if (qualifier == null || !"R.layout".equals(qualifier.getText())) {
+                    return; // not layout reference
+                }
+
+                PsiClass clazz = PsiTreeUtil.getParentOfType(expression, PsiClass.class);
+                while (clazz instanceof PsiAnonymousClass) {
+                    clazz = PsiTreeUtil.getParentOfType(clazz, PsiClass.class);
+                }
+                if (clazz == null) {
+                    return; // no class to generate into
+                }
+
+                LayoutReference reference = new LayoutReference();
+                reference.clazz = clazz;
+                reference.layoutName = expression.getReferenceName();
+                references.add(reference);
+            }
+        });
+        return references;
+    }
+
+    private static class LayoutReference {
+        PsiElement clazz; // PsiClass or Kotlin class
+        String layoutName;
+    }
+
+    private static class BatchItem {
+        SmartPsiElementPointer<PsiElement> target;
+        String layoutFileName;
+        String viewHolderName;
+        ArrayList<Element> elements;
+    }
+}
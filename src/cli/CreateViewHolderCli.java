@@ -0,0 +1,419 @@
+package cli;
+
+import entity.Element;
+import entity.GenerateOptions;
+import entity.LayoutTag;
+import layout.LayoutExpander;
+import layout.LayoutReader;
+import template.Template;
+import template.ViewHolderSource;
+import utils.CreateViewHolderConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates ViewHolders of all layouts without the IDE, e.g. on CI. Layouts of the res directories of one module are
+ * variants of each other like in the plugin, res directories given after --module name form another module whose
+ * holders are written to a subdirectory of the output. Every layout is rendered from the same model and templates
+ * as in the plugin.
+ * The output is the rendered template, the plugin reformats it after insertion, so the CLI only generates and
+ * can not tell whether holders inserted by the plugin are up to date.
+ * <p>
+ * Usage: CreateViewHolderCli --out dir [options] res... [--module name res...]...
+ */
+public class CreateViewHolderCli {
+
+    private static final int BATCH_SIZE = 16; // layouts generated by single task without splitting
+
+    private final Options mOptions;
+    private final List<Layout> mLayouts = new ArrayList<Layout>();
+    private final ConcurrentMap<File, List<LayoutTag>> mTags = new ConcurrentHashMap<File, List<LayoutTag>>();
+    private final ConcurrentLinkedQueue<String> mProblems = new ConcurrentLinkedQueue<String>();
+    private final Template mTemplate;
+
+    public CreateViewHolderCli(Options options) throws IOException {
+        mOptions = options;
+        for (Map.Entry<String, List<File>> module : options.modules.entrySet()) {
+            File outDir = module.getKey().isEmpty() ? options.outDir : new File(options.outDir, module.getKey());
+            Map<String, List<File>> layouts = findLayouts(module.getValue());
+            for (List<File> variants : layouts.values()) {
+                mLayouts.add(new Layout(layouts, variants, outDir));
+            }
+        }
+        mTemplate = loadTemplate(options);
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            CreateViewHolderCli cli = new CreateViewHolderCli(options);
+            long start = System.nanoTime();
+            List<String> problems = cli.run();
+            for (String problem : problems) {
+                System.err.println(problem);
+            }
+            System.out.println(cli.mLayouts.size() + " layouts in " + (System.nanoTime() - start) / 1000000 + " ms");
+            System.exit(problems.isEmpty() ? 0 : 1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Generate holders of all layouts in parallel
+     *
+     * @return problems, unreadable layouts and holders that could not be written
+     */
+    public List<String> run() {
+        ForkJoinPool pool = new ForkJoinPool(mOptions.threads);
+        try {
+            pool.invoke(new GenerateTask(0, mLayouts.size()));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> problems = new ArrayList<String>(mProblems);
+        Collections.sort(problems);
+        return problems;
+    }
+
+    private void generate(Layout layout) {
+        String layoutFileName = layout.variants.get(0).getName();
+        ArrayList<Element> elements = new FileLayoutExpander(layout.moduleLayouts).getElements(layout.variants, new ArrayList<Element>());
+        for (Element element : elements) {
+            element.setFieldNameType(mOptions.fieldNameType);
+            element.setFieldNamePrefix(mOptions.fieldNamePrefix);
+        }
+
+        String viewHolderName = ViewHolderSource.getViewHolderName(layoutFileName);
+        String holderClassName = viewHolderName + mOptions.generate.holderSuffix;
+        String source;
+        try {
+            source = ViewHolderSource.create(mTemplate, holderClassName, viewHolderName + mOptions.generate.modelSuffix,
+                    layoutFileName, elements, mOptions.generate, mOptions).render();
+        } catch (RuntimeException e) {
+            mProblems.add(layoutFileName + ": " + e.getMessage()); // broken user template
+            return;
+        }
+
+        File out = new File(layout.outDir, holderClassName + (mOptions.kotlin ? ".kt" : ".java"));
+        try {
+            byte[] bytes = source.getBytes("UTF-8");
+            byte[] existing = out.isFile() ? readBytes(out) : null;
+            if (Arrays.equals(bytes, existing)) {
+                return; // up to date, keep the timestamp for incremental builds
+            }
+            writeBytes(out, bytes);
+        } catch (IOException e) {
+            mProblems.add(out.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Layout files of res/layout* directories of one module grouped by name
+     */
+    private static Map<String, List<File>> findLayouts(List<File> resDirs) throws IOException {
+        Map<String, List<File>> layouts = new TreeMap<String, List<File>>();
+        for (File res : resDirs) {
+            File[] dirs = res.listFiles();
+            if (dirs == null) {
+                throw new IOException("Not a directory: " + res);
+            }
+            for (File dir : dirs) {
+                if (!dir.isDirectory() || !(dir.getName().equals("layout") || dir.getName().startsWith("layout-"))) {
+                    continue;
+                }
+                File[] files = dir.listFiles();
+                for (File file : files != null ? files : new File[0]) {
+                    if (file.isFile() && file.getName().endsWith(".xml")) {
+                        List<File> variants = layouts.get(file.getName());
+                        if (variants == null) {
+                            variants = new ArrayList<File>();
+                            layouts.put(file.getName(), variants);
+                        }
+                        variants.add(file);
+                    }
+                }
+            }
+        }
+
+        for (List<File> variants : layouts.values()) {
+            // same order as in the plugin
+            Collections.sort(variants, new Comparator<File>() {
+                @Override
+                public int compare(File o1, File o2) {
+                    int result = o1.getParentFile().getName().compareTo(o2.getParentFile().getName());
+                    return result != 0 ? result : o1.getPath().compareTo(o2.getPath());
+                }
+            });
+        }
+        return layouts;
+    }
+
+    private static Template loadTemplate(Options options) throws IOException {
+        String name = options.generate.recyclerView
+                ? options.kotlin ? ViewHolderSource.RECYCLER_KOTLIN_TEMPLATE : ViewHolderSource.RECYCLER_JAVA_TEMPLATE
+                : options.kotlin ? ViewHolderSource.KOTLIN_TEMPLATE : ViewHolderSource.JAVA_TEMPLATE;
+        File file = options.templateDir != null ? new File(options.templateDir, name) : null;
+        if (file == null || !file.isFile()) {
+            return ViewHolderSource.getDefaultTemplate(name);
+        }
+        try {
+            return Template.compile(new String(readBytes(file), "UTF-8"));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid template " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeBytes(File file, byte[] bytes) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can not create " + dir);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Generates a range of layouts, splits the range until it is small enough
+     */
+    private class GenerateTask extends RecursiveAction {
+
+        private final int mFrom;
+        private final int mTo;
+
+        GenerateTask(int from, int to) {
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom > BATCH_SIZE) {
+                int middle = (mFrom + mTo) >>> 1;
+                invokeAll(new GenerateTask(mFrom, middle), new GenerateTask(middle, mTo));
+                return;
+            }
+            for (int i = mFrom; i < mTo; i++) {
+                generate(mLayouts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Expands layouts read from files, tags of every file are read once per run and shared by all tasks
+     */
+    private class FileLayoutExpander extends LayoutExpander<File> {
+
+        private final Map<String, List<File>> mModuleLayouts;
+
+        FileLayoutExpander(Map<String, List<File>> moduleLayouts) {
+            mModuleLayouts = moduleLayouts;
+        }
+
+        @Override
+        protected List<LayoutTag> getTags(File layout) {
+            List<LayoutTag> tags = mTags.get(layout);
+            if (tags == null) {
+                try {
+                    tags = LayoutReader.read(layout);
+                } catch (IOException e) {
+                    mProblems.add(e.getMessage());
+                    tags = Collections.emptyList();
+                }
+                List<LayoutTag> previous = mTags.putIfAbsent(layout, tags);
+                if (previous != null) {
+                    tags = previous;
+                }
+            }
+            return tags;
+        }
+
+        @Override
+        protected void onInvalidTag(LayoutTag tag, IllegalArgumentException e) {
+            mProblems.add(tag.source + ": " + e.getMessage() + " " + tag.id);
+        }
+
+        @Override
+        protected File findLayout(File from, String name) {
+            List<File> variants = mModuleLayouts.get(name + ".xml"); // included layouts of the same module only
+            return variants != null ? variants.get(0) : null;
+        }
+    }
+
+    /**
+     * Variants of single layout and where its holder is written
+     */
+    private static class Layout {
+
+        final Map<String, List<File>> moduleLayouts; // layout name -> variants of the module, the variant without qualifiers first
+        final List<File> variants;
+        final File outDir;
+
+        Layout(Map<String, List<File>> moduleLayouts, List<File> variants, File outDir) {
+            this.moduleLayouts = moduleLayouts;
+            this.variants = variants;
+            this.outDir = outDir;
+        }
+    }
+
+    /**
+     * Command line options
+     */
+    public static class Options implements ViewHolderSource.ClassLookup {
+
+        static final String USAGE = "Usage: CreateViewHolderCli --out <dir> [--kotlin] [--recycler] [--androidx]"
+                + " [--auto-implements] [--bind-by-index] [--view-holder-interface] [--field-name-type 1|2|3] [--field-name-prefix m]"
+                + " [--holder-suffix ViewHolder] [--model-suffix ViewModel] [--template-dir <dir>] [--threads <n>] <res dir>..."
+                + " [--module <name> <res dir>...]...";
+
+        public final Map<String, List<File>> modules = new LinkedHashMap<String, List<File>>(); // "" for res dirs before --module
+        public final GenerateOptions generate = new GenerateOptions();
+        public final Set<String> knownClasses = new HashSet<String>();
+        public File outDir;
+        public File templateDir;
+        public boolean kotlin = false;
+        public int fieldNameType = 1;
+        public String fieldNamePrefix; // prefix of mAaBbCc style, null for m
+        public int threads = Runtime.getRuntime().availableProcessors();
+
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            // Android SDK is always there
+            options.knownClasses.add(CreateViewHolderConfig.ONCLICK_INTERFACE_FULL_NAME);
+            options.knownClasses.add(CreateViewHolderConfig.ONLONGCLICK_INTERFACE_FULL_NAME);
+            String module = "";
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--out")) {
+                    options.outDir = new File(value(args, ++i, arg));
+                } else if (arg.equals("--kotlin")) {
+                    options.kotlin = true;
+                } else if (arg.equals("--recycler")) {
+                    options.generate.recyclerView = true;
+                } else if (arg.equals("--androidx")) {
+                    options.knownClasses.add(CreateViewHolderConfig.RECYCLERVIEW_ANDROIDX_FULL_NAME);
+                } else if (arg.equals("--auto-implements")) {
+                    options.generate.autoImplements = true;
+                } else if (arg.equals("--bind-by-index")) {
+                    options.generate.bindByPath = true;
+                } else if (arg.equals("--view-holder-interface")) {
+                    options.knownClasses.add(options.generate.viewHolderInterface);
+                } else if (arg.equals("--field-name-type")) {
+                    options.fieldNameType = number(value(args, ++i, arg), arg, 1, 3);
+                } else if (arg.equals("--field-name-prefix")) {
+                    options.fieldNamePrefix = value(args, ++i, arg);
+                } else if (arg.equals("--holder-suffix")) {
+                    options.generate.holderSuffix = value(args, ++i, arg);
+                } else if (arg.equals("--model-suffix")) {
+                    options.generate.modelSuffix = value(args, ++i, arg);
+                } else if (arg.equals("--template-dir")) {
+                    options.templateDir = new File(value(args, ++i, arg));
+                } else if (arg.equals("--threads")) {
+                    options.threads = number(value(args, ++i, arg), arg, 1, Short.MAX_VALUE);
+                } else if (arg.equals("--module")) {
+                    module = value(args, ++i, arg);
+                    if (module.isEmpty() || options.modules.containsKey(module)) {
+                        throw new IllegalArgumentException("Invalid value of " + arg + ": " + module);
+                    }
+                    options.modules.put(module, new ArrayList<File>());
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                } else {
+                    List<File> resDirs = options.modules.get(module);
+                    if (resDirs == null) {
+                        resDirs = new ArrayList<File>();
+                        options.modules.put(module, resDirs);
+                    }
+                    resDirs.add(new File(arg));
+                }
+            }
+
+            if (options.outDir == null) {
+                throw new IllegalArgumentException("Missing --out");
+            }
+            if (options.modules.isEmpty()) {
+                throw new IllegalArgumentException("Missing res directory");
+            }
+            for (Map.Entry<String, List<File>> entry : options.modules.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    throw new IllegalArgumentException("Missing res directory of module " + entry.getKey());
+                }
+            }
+            return options;
+        }
+
+        @Override
+        public boolean isKnown(String qualifiedName) {
+            return knownClasses.contains(qualifiedName);
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + option);
+            }
+            return args[index];
+        }
+
+        private static int number(String value, String option, int min, int max) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number >= min && number <= max) {
+                    return number;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            throw new IllegalArgumentException("Invalid value of " + option + ": " + value);
+        }
+    }
+}
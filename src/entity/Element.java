@@ -1,92 +1,146 @@
 package entity;
 
-import com.intellij.psi.xml.XmlAttribute;
-import com.intellij.psi.xml.XmlTag;
-import utils.StringUtils;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
 
 public class Element {
 
     // constants
-    private static final Pattern sIdPattern = Pattern.compile("@\\+?(android:)?id/([^$]+)$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern sValidityPattern = Pattern.compile("^([a-zA-Z_\\$][\\w\\$]*)$", Pattern.CASE_INSENSITIVE);
-    public String id;
-    public boolean isAndroidNS = false;
-    public String nameFull; // element name with package
-    public String name; // element name
-    public int fieldNameType = 1; // 1 aa_bb_cc; 2 aaBbCc 3 mAaBbCc
+    private static final int FLAG_ANDROID_NS = 1;
+    private static final int FLAG_CLICKABLE = 1 << 1; // Button, view_having_clickable_attr etc.
+    private static final int FLAG_LONG_CLICKABLE = 1 << 2; // view_having_long_clickable_attr
+    private static final int FLAG_ITEM_CLICKABLE = 1 << 3; // ListView, GridView etc.
+    private static final int FLAG_EDIT_TEXT = 1 << 4; // EditText
+    private static final String DEFAULT_PREFIX = "m";
+
+    public final String id;
+    public final String nameFull; // element name with package
+    public final String name; // element name
+    public final String hint; // android:hint of EditText
+    public final String source; // layout file declaring the ID, differs from the generated layout for included IDs
+    public final String path; // child indexes from the root view separated by slash, null when unknown
     public boolean isValid = false;
     public boolean used = true;
-    public boolean isClickable = false; // Button, view_having_clickable_attr etc.
-    public boolean isLongClickable = false; // Button, view_having_clickable_attr etc.
-    public boolean isItemClickable = false; // ListView, GridView etc.
-    public boolean isEditText = false; // EditText
-    public XmlTag xml;
+    public boolean lazy = false; // resolved by getter on first access instead of in the constructor
+    public final String stubLayout; // layout inflated by ViewStub, null for other views
+    public boolean optional = false; // missing in some variants of the layout, e.g. layout-land
+    private final int mFlags;
+    private int mFieldNameType = 1; // 1 aa_bb_cc; 2 aaBbCc 3 mAaBbCc
+    private List<Element> mStubElements; // IDs of the stub layout, bound once the stub is inflated
+    private final String[] mFieldNames = new String[3]; // per fieldNameType, built on first use
+    private String mFieldNamePrefix = DEFAULT_PREFIX; // prefix of mAaBbCc style
+    private String mFullID;
 
     /**
      * Constructs new element
      *
-     * @param name Class name of the view
-     * @param id   Value in android:id attribute
+     * @param tag Attributes of the layout tag
      * @throws IllegalArgumentException When the arguments are invalid
      */
-    public Element(String name, String id, XmlTag xml) {
-        // id
-        final Matcher matcher = sIdPattern.matcher(id);
-        if (matcher.find() && matcher.groupCount() > 1) {
-            this.id = matcher.group(2);
-
-            String androidNS = matcher.group(1);
-            this.isAndroidNS = !(androidNS == null || androidNS.length() == 0);
-        }
+    public Element(LayoutTag tag) {
+        String name = tag.getViewName();
+        String id = tag.id;
+        int flags = 0;
 
-        if (this.id == null) {
+        // id - @+id/name, @id/name, @+android:id/name or @android:id/name
+        int start = parseIdStart(id);
+        if (start < 0) {
             throw new IllegalArgumentException("Invalid format of view id");
         }
+        if (id.regionMatches(true, start - "android:id/".length(), "android:id/", 0, "android:id/".length())) {
+            flags |= FLAG_ANDROID_NS;
+        }
+        this.id = id.substring(start);
 
         // name
-        String[] packages = name.split("\\.");
-        if (packages.length > 1) {
-            this.nameFull = name;
-            this.name = packages[packages.length - 1];
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            this.nameFull = name.intern();
+            this.name = name.substring(dot + 1).intern();
         } else {
             this.nameFull = null;
-            this.name = name;
+            this.name = name.intern();
         }
 
-        this.xml = xml;
-
-        // clickable
-        XmlAttribute clickable = xml.getAttribute("android:clickable", null);
-        boolean hasClickable = clickable != null &&
-                clickable.getValue() != null &&
-                clickable.getValue().equals("true");
+        this.hint = tag.hint;
+        this.source = tag.source;
+        this.path = tag.path;
+        this.stubLayout = tag.stubLayout;
 
-        // longClickable
-        XmlAttribute longClickable = xml.getAttribute("android:longClickable", null);
-        boolean hasLongClickable = longClickable != null &&
-                longClickable.getValue() != null &&
-                longClickable.getValue().equals("true");
-
-        String xmlName = xml.getName();
+        String xmlName = tag.tagName;
         if (xmlName.contains("RadioButton")) {
             // TODO check
         } else {
-            if ((xmlName.contains("ListView") || xmlName.contains("GridView")) && hasClickable) {
-                isItemClickable = true;
+            if ((xmlName.contains("ListView") || xmlName.contains("GridView")) && tag.clickable) {
+                flags |= FLAG_ITEM_CLICKABLE;
             } else {
-                if (xmlName.contains("Button") || hasClickable) {
-                    isClickable = true;
+                if (xmlName.contains("Button") || tag.clickable) {
+                    flags |= FLAG_CLICKABLE;
                 }
-                if (hasLongClickable) {
-                    isLongClickable = true;
+                if (tag.longClickable) {
+                    flags |= FLAG_LONG_CLICKABLE;
                 }
             }
         }
         // isEditText
-        isEditText = xmlName.contains("EditText");
+        if (xmlName.contains("EditText")) {
+            flags |= FLAG_EDIT_TEXT;
+        }
+        mFlags = flags;
+    }
+
+    /**
+     * Find where the name starts in android:id value
+     *
+     * @param id
+     * @return index of the name or -1 when the value is not an ID
+     */
+    private static int parseIdStart(String id) {
+        if (id == null || !id.startsWith("@")) {
+            return -1;
+        }
+        int i = 1;
+        if (id.startsWith("+", i)) {
+            i++;
+        }
+        if (id.regionMatches(true, i, "android:", 0, "android:".length())) {
+            i += "android:".length();
+        }
+        if (!id.regionMatches(true, i, "id/", 0, "id/".length())) {
+            return -1;
+        }
+        i += "id/".length();
+        return i < id.length() ? i : -1;
+    }
+
+    public boolean isAndroidNS() {
+        return (mFlags & FLAG_ANDROID_NS) != 0;
+    }
+
+    public boolean isClickable() {
+        return (mFlags & FLAG_CLICKABLE) != 0;
+    }
+
+    public boolean isLongClickable() {
+        return (mFlags & FLAG_LONG_CLICKABLE) != 0;
+    }
+
+    public boolean isItemClickable() {
+        return (mFlags & FLAG_ITEM_CLICKABLE) != 0;
+    }
+
+    public boolean isEditText() {
+        return (mFlags & FLAG_EDIT_TEXT) != 0;
+    }
+
+    /**
+     * Whether the view may be resolved on first access, missing views are known after lookup only, stubs and
+     * clickable views need their listeners set in the constructor
+     *
+     * @return
+     */
+    public boolean canBeLazy() {
+        return !optional && stubLayout == null && !isClickable() && !isLongClickable();
     }
 
     /**
@@ -95,19 +149,66 @@ public class Element {
      * @return
      */
     public String getFullID() {
-        StringBuilder fullID = new StringBuilder();
-        String rPrefix;
+        if (mFullID == null) {
+            mFullID = (isAndroidNS() ? "android.R.id." : "R.id.") + id;
+        }
+        return mFullID;
+    }
 
-        if (isAndroidNS) {
-            rPrefix = "android.R.id.";
-        } else {
-            rPrefix = "R.id.";
+    /**
+     * Set naming style of the element and of the IDs of its stub layout
+     *
+     * @param fieldNameType 1 aa_bb_cc; 2 aaBbCc 3 mAaBbCc
+     */
+    public void setFieldNameType(int fieldNameType) {
+        mFieldNameType = fieldNameType;
+        if (mStubElements != null) {
+            for (Element stubElement : mStubElements) {
+                stubElement.setFieldNameType(fieldNameType);
+            }
+        }
+    }
+
+    /**
+     * Set prefix of the mAaBbCc naming style of the element and of the IDs of its stub layout
+     *
+     * @param prefix prefix, "m" when null or empty
+     */
+    public void setFieldNamePrefix(String prefix) {
+        prefix = prefix == null || prefix.isEmpty() ? DEFAULT_PREFIX : prefix;
+        if (!prefix.equals(mFieldNamePrefix)) {
+            mFieldNamePrefix = prefix;
+            mFieldNames[2] = null; // built again with the new prefix
         }
+        if (mStubElements != null) {
+            for (Element stubElement : mStubElements) {
+                stubElement.setFieldNamePrefix(prefix);
+            }
+        }
+    }
 
-        fullID.append(rPrefix);
-        fullID.append(id);
+    public int getFieldNameType() {
+        return mFieldNameType;
+    }
+
+    /**
+     * IDs of the stub layout
+     *
+     * @return elements or null when the element is not ViewStub
+     */
+    public List<Element> getStubElements() {
+        return mStubElements;
+    }
 
-        return fullID.toString();
+    /**
+     * Set IDs of the stub layout, they take over naming style of the element
+     *
+     * @param stubElements
+     */
+    public void setStubElements(List<Element> stubElements) {
+        mStubElements = stubElements != null ? Collections.unmodifiableList(stubElements) : null;
+        setFieldNameType(mFieldNameType);
+        setFieldNamePrefix(mFieldNamePrefix);
     }
 
     /**
@@ -116,31 +217,68 @@ public class Element {
      * @return
      */
     public String getFieldName() {
-        String fieldName = id;
-        String[] names = id.split("_");
-        if (fieldNameType == 2) {
-            // aaBbCc
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < names.length; i++) {
-                if (i == 0) {
-                    sb.append(names[i]);
-                } else {
-                    sb.append(StringUtils.firstToUpperCase(names[i]));
-                }
-            }
-            fieldName = sb.toString();
-        } else if (fieldNameType == 3) {
+        int index = mFieldNameType == 2 || mFieldNameType == 3 ? mFieldNameType - 1 : 0;
+        String fieldName = mFieldNames[index];
+        if (fieldName == null) {
+            fieldName = buildFieldName(id, index + 1, mFieldNamePrefix);
+            mFieldNames[index] = fieldName;
+        }
+        return fieldName;
+    }
+
+    /**
+     * Name of the getter of lazy element, independent of the naming style
+     *
+     * @return getAaBbCc for aa_bb_cc
+     */
+    public String getGetterName() {
+        return "get" + getCapitalizedName();
+    }
+
+    /**
+     * Name of the holder class of views inflated by ViewStub
+     *
+     * @return AaBbCcHolder for aa_bb_cc
+     */
+    public String getStubClassName() {
+        return getCapitalizedName() + "Holder";
+    }
+
+    private String getCapitalizedName() {
+        String name = buildFieldName(id, 2, null);
+        if (name.isEmpty()) {
+            return id; // only underscores, e.g. @+id/_
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Single pass over the ID, parts are separated by underscores
+     */
+    private static String buildFieldName(String id, int fieldNameType, String prefix) {
+        if (fieldNameType == 1) {
+            // aa_bb_cc
+            return id;
+        }
+
+        StringBuilder sb = new StringBuilder(id.length() + 4);
+        if (fieldNameType == 3) {
             // mAaBbCc
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < names.length; i++) {
-                if (i == 0) {
-                    sb.append("m");
-                }
-                sb.append(StringUtils.firstToUpperCase(names[i]));
+            sb.append(prefix);
+        }
+        boolean upper = fieldNameType == 3; // aaBbCc keeps the first part
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c == '_') {
+                upper = true;
+            } else if (upper) {
+                sb.append(Character.toUpperCase(c));
+                upper = false;
+            } else {
+                sb.append(c);
             }
-            fieldName = sb.toString();
         }
-        return fieldName;
+        return sb.toString();
     }
 
     /**
@@ -149,8 +287,14 @@ public class Element {
      * @return
      */
     public boolean checkValidity() {
-        Matcher matcher = sValidityPattern.matcher(getFieldName());
-        isValid = matcher.find();
+        String fieldName = getFieldName();
+        boolean valid = fieldName.length() > 0;
+        for (int i = 0; i < fieldName.length() && valid; i++) {
+            char c = fieldName.charAt(i);
+            valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$'
+                    || (i > 0 && c >= '0' && c <= '9');
+        }
+        isValid = valid;
 
         return isValid;
     }
@@ -0,0 +1,17 @@
+package entity;
+
+import utils.CreateViewHolderConfig;
+
+/**
+ * Options of single generation chosen in the dialog, preset from the project settings
+ */
+public class GenerateOptions {
+
+    public boolean autoImplements = false; // implement OnClickListener, OnLongClickListener and submit()
+    public boolean incremental = true; // update existing ViewHolder instead of replacing it
+    public boolean bindByPath = false; // walk child indexes known from the layout instead of findViewById
+    public boolean recyclerView = false; // RecyclerView.ViewHolder with static factory and shared click listener
+    public String holderSuffix = CreateViewHolderConfig.VIEWHOLDER_CLASS_NAME; // ItemFeed + ViewHolder
+    public String modelSuffix = CreateViewHolderConfig.VIEWMODEL_CLASS_NAME; // ItemFeed + ViewModel
+    public String viewHolderInterface = CreateViewHolderConfig.VIEWHOLDER_INTERFACE_FULL_NAME; // implemented when known, empty for none
+}
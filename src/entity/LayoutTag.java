@@ -0,0 +1,54 @@
+package entity;
+
+/**
+ * Raw attributes of a layout tag that carries an android:id, an include or the root view, as stored in the layout index
+ */
+public class LayoutTag {
+
+    public String tagName; // xml tag name
+    public String className; // value of the class attribute, null if missing
+    public String id; // value of android:id attribute, null if missing
+    public boolean clickable = false; // android:clickable="true"
+    public boolean longClickable = false; // android:longClickable="true"
+    public String hint; // value of android:hint attribute, null if missing
+    public String include; // layout name of <include layout="@layout/..."/>, null for other tags
+    public boolean root = false; // root view of the layout
+    public String source; // name of the layout file containing the tag
+    public String path; // child indexes from the root view separated by slash, "" for the root, null when unknown
+    public String stubLayout; // layout name of <ViewStub android:layout="@layout/..."/>, null for other tags
+    public String inflatedId; // android:inflatedId of ViewStub, null if missing
+
+    public LayoutTag(String tagName, String className, String id, boolean clickable, boolean longClickable, String hint) {
+        this.tagName = tagName;
+        this.className = className;
+        this.id = id;
+        this.clickable = clickable;
+        this.longClickable = longClickable;
+        this.hint = hint;
+    }
+
+    /**
+     * Copy of the tag, cached tags are shared and must not be changed
+     *
+     * @return
+     */
+    public LayoutTag copy() {
+        LayoutTag tag = new LayoutTag(tagName, className, id, clickable, longClickable, hint);
+        tag.include = include;
+        tag.root = root;
+        tag.source = source;
+        tag.path = path;
+        tag.stubLayout = stubLayout;
+        tag.inflatedId = inflatedId;
+        return tag;
+    }
+
+    /**
+     * Class name of the view, custom class has priority over the tag name
+     *
+     * @return
+     */
+    public String getViewName() {
+        return className != null ? className : tagName;
+    }
+}
@@ -0,0 +1,182 @@
+package form;
+
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.TextFieldWithBrowseButton;
+import com.intellij.openapi.util.Comparing;
+import com.intellij.psi.PsiNameHelper;
+import com.intellij.util.ui.FormBuilder;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+import service.CreateViewHolderSettings;
+
+import javax.swing.*;
+
+/**
+ * Settings page of the project, Settings | Tools | CreateViewHolder
+ */
+public class CreateViewHolderConfigurable implements Configurable {
+
+    private static final String[] FIELD_NAME_TYPES = {"aa_bb_cc", "aaBbCc", "mAaBbCc"};
+
+    private final Project mProject;
+    private JPanel mPanel;
+    private JComboBox<String> mFieldNameType;
+    private JTextField mFieldNamePrefix;
+    private JTextField mHolderSuffix;
+    private JTextField mModelSuffix;
+    private JTextField mViewHolderInterface;
+    private TextFieldWithBrowseButton mTemplateDir;
+    private JCheckBox mLazy;
+    private JCheckBox mAutoImplements;
+    private JCheckBox mIncremental;
+    private JCheckBox mBindByPath;
+    private JCheckBox mRecyclerView;
+
+    public CreateViewHolderConfigurable(Project project) {
+        mProject = project;
+    }
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return "CreateViewHolder";
+    }
+
+    @Nullable
+    @Override
+    public String getHelpTopic() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        mFieldNameType = new JComboBox<String>(FIELD_NAME_TYPES);
+        mFieldNamePrefix = new JTextField();
+        mFieldNamePrefix.setToolTipText("Prefix of the mAaBbCc style, empty for the field name prefix of code style or m");
+        mHolderSuffix = new JTextField();
+        mModelSuffix = new JTextField();
+        mViewHolderInterface = new JTextField();
+        mViewHolderInterface.setToolTipText("Implemented when the class is found, it must declare onResume(), onPause() and getView(). Empty for none");
+        mTemplateDir = new TextFieldWithBrowseButton();
+        mTemplateDir.addBrowseFolderListener("Template Directory", "Directory with ViewHolder.java.ft and the other templates",
+                mProject, FileChooserDescriptorFactory.createSingleFolderDescriptor());
+        mTemplateDir.setToolTipText("Relative to the project directory or absolute, empty for the bundled templates");
+        mLazy = new JCheckBox("Lazy views");
+        mLazy.setToolTipText("Resolve views by getter on first access instead of in the constructor");
+        mAutoImplements = new JCheckBox("Auto Implements");
+        mIncremental = new JCheckBox("Incremental Update");
+        mBindByPath = new JCheckBox("Bind By Index");
+        mRecyclerView = new JCheckBox("RecyclerView");
+
+        mPanel = FormBuilder.createFormBuilder()
+                .addLabeledComponent("Field name:", mFieldNameType)
+                .addLabeledComponent("Field name prefix:", mFieldNamePrefix)
+                .addLabeledComponent("ViewHolder suffix:", mHolderSuffix)
+                .addLabeledComponent("ViewModel suffix:", mModelSuffix)
+                .addLabeledComponent("ViewHolder interface:", mViewHolderInterface)
+                .addLabeledComponent("Template directory:", mTemplateDir)
+                .addSeparator()
+                .addComponent(mLazy)
+                .addComponent(mAutoImplements)
+                .addComponent(mIncremental)
+                .addComponent(mBindByPath)
+                .addComponent(mRecyclerView)
+                .addComponentFillVertically(new JPanel(), 0)
+                .getPanel();
+        reset();
+        return mPanel;
+    }
+
+    @Override
+    public boolean isModified() {
+        CreateViewHolderSettings.Settings saved = CreateViewHolderSettings.getInstance(mProject).getSettings();
+        CreateViewHolderSettings.Settings settings = getSettings();
+        return saved.fieldNameType != settings.fieldNameType
+                || !Comparing.equal(saved.fieldNamePrefix, settings.fieldNamePrefix)
+                || !Comparing.equal(saved.holderSuffix, settings.holderSuffix)
+                || !Comparing.equal(saved.modelSuffix, settings.modelSuffix)
+                || !Comparing.equal(saved.viewHolderInterface, settings.viewHolderInterface)
+                || !Comparing.equal(saved.templateDir, settings.templateDir)
+                || saved.lazy != settings.lazy
+                || saved.autoImplements != settings.autoImplements
+                || saved.incremental != settings.incremental
+                || saved.bindByPath != settings.bindByPath
+                || saved.recyclerView != settings.recyclerView;
+    }
+
+    @Override
+    public void apply() throws ConfigurationException {
+        CreateViewHolderSettings.Settings settings = getSettings();
+
+        // invalid names would produce code that does not compile
+        PsiNameHelper nameHelper = PsiNameHelper.getInstance(mProject);
+        if (settings.fieldNamePrefix != null && !nameHelper.isIdentifier(settings.fieldNamePrefix + "a")) {
+            throw new ConfigurationException("Invalid field name prefix " + settings.fieldNamePrefix);
+        }
+        if (!nameHelper.isIdentifier("A" + settings.holderSuffix)) {
+            throw new ConfigurationException("Invalid ViewHolder suffix " + settings.holderSuffix);
+        }
+        if (!nameHelper.isIdentifier("A" + settings.modelSuffix)) {
+            throw new ConfigurationException("Invalid ViewModel suffix " + settings.modelSuffix);
+        }
+        if (settings.holderSuffix.equals(settings.modelSuffix)) {
+            throw new ConfigurationException("ViewHolder and ViewModel would have the same name");
+        }
+        if (!settings.viewHolderInterface.isEmpty() && !nameHelper.isQualifiedName(settings.viewHolderInterface)) {
+            throw new ConfigurationException("Invalid ViewHolder interface " + settings.viewHolderInterface);
+        }
+
+        CreateViewHolderSettings.getInstance(mProject).setSettings(settings);
+    }
+
+    @Override
+    public void reset() {
+        CreateViewHolderSettings.Settings settings = CreateViewHolderSettings.getInstance(mProject).getSettings();
+        mFieldNameType.setSelectedIndex(settings.fieldNameType >= 1 && settings.fieldNameType <= 3 ? settings.fieldNameType - 1 : 0);
+        mFieldNamePrefix.setText(settings.fieldNamePrefix != null ? settings.fieldNamePrefix : "");
+        mHolderSuffix.setText(settings.holderSuffix);
+        mModelSuffix.setText(settings.modelSuffix);
+        mViewHolderInterface.setText(settings.viewHolderInterface);
+        mTemplateDir.setText(settings.templateDir != null ? settings.templateDir : "");
+        mLazy.setSelected(settings.lazy);
+        mAutoImplements.setSelected(settings.autoImplements);
+        mIncremental.setSelected(settings.incremental);
+        mBindByPath.setSelected(settings.bindByPath);
+        mRecyclerView.setSelected(settings.recyclerView);
+    }
+
+    @Override
+    public void disposeUIResources() {
+        mPanel = null;
+    }
+
+    /**
+     * Settings as shown in the form
+     *
+     * @return
+     */
+    private CreateViewHolderSettings.Settings getSettings() {
+        CreateViewHolderSettings.Settings settings = new CreateViewHolderSettings.Settings();
+        settings.fieldNameType = mFieldNameType.getSelectedIndex() + 1;
+        settings.fieldNamePrefix = emptyToNull(mFieldNamePrefix.getText());
+        settings.holderSuffix = mHolderSuffix.getText().trim();
+        settings.modelSuffix = mModelSuffix.getText().trim();
+        settings.viewHolderInterface = mViewHolderInterface.getText().trim();
+        settings.templateDir = emptyToNull(mTemplateDir.getText());
+        settings.lazy = mLazy.isSelected();
+        settings.autoImplements = mAutoImplements.isSelected();
+        settings.incremental = mIncremental.isSelected();
+        settings.bindByPath = mBindByPath.isSelected();
+        settings.recyclerView = mRecyclerView.isSelected();
+        return settings;
+    }
+
+    private static String emptyToNull(String text) {
+        text = text.trim();
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -7,23 +7,13 @@ import java.awt.event.ActionListener;
 
 public class EntryHeader extends JPanel {
 
-    private JLabel mType;
-    private JLabel mID;
     private JLabel mName;
     private ButtonGroup mVarNameType;
     private JRadioButtonMenuItem mType1;
     private JRadioButtonMenuItem mType2;
     private JRadioButtonMenuItem mType3;
 
-    public EntryHeader(final OnTypeSelected onTypeSelected) {
-        mType = new JLabel("Element");
-        mType.setPreferredSize(new Dimension(100, 26));
-        mType.setFont(new Font(mType.getFont().getFontName(), Font.BOLD, mType.getFont().getSize()));
-
-        mID = new JLabel("ID");
-        mID.setPreferredSize(new Dimension(160, 26));
-        mID.setFont(new Font(mID.getFont().getFontName(), Font.BOLD, mID.getFont().getSize()));
-
+    public EntryHeader(int fieldNameType, String prefix, final OnTypeSelected onTypeSelected) {
         mName = new JLabel("VarName");
         mName.setPreferredSize(new Dimension(60, 26));
         mName.setFont(new Font(mName.getFont().getFontName(), Font.BOLD, mName.getFont().getSize()));
@@ -36,7 +26,6 @@ public class EntryHeader extends JPanel {
                 onTypeSelected.onTypeSelected(1);
             }
         });
-        mType1.setSelected(true);
         mVarNameType.add(mType1);
 
         mType2 = new JRadioButtonMenuItem("aaBbCc");
@@ -48,7 +37,7 @@ public class EntryHeader extends JPanel {
         });
         mVarNameType.add(mType2);
 
-        mType3 = new JRadioButtonMenuItem("mAaBbCc");
+        mType3 = new JRadioButtonMenuItem((prefix == null || prefix.isEmpty() ? "m" : prefix) + "AaBbCc");
         mType3.setPreferredSize(new Dimension(120, 26));
         mType3.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
@@ -61,16 +50,16 @@ public class EntryHeader extends JPanel {
         setMaximumSize(new Dimension(Short.MAX_VALUE, 54));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         add(Box.createHorizontalGlue());
-        add(Box.createRigidArea(new Dimension(52, 0)));
-        add(mType);
-        add(Box.createRigidArea(new Dimension(12, 0)));
-        add(mID);
-        add(Box.createRigidArea(new Dimension(12, 0)));
         add(mName);
         add(Box.createRigidArea(new Dimension(6, 0)));
         add(mType1);
         add(mType2);
         add(mType3);
+
+        // naming style preset from the settings
+        mType1.setSelected(fieldNameType != 2 && fieldNameType != 3);
+        mType2.setSelected(fieldNameType == 2);
+        mType3.setSelected(fieldNameType == 3);
     }
 
     public interface OnTypeSelected {
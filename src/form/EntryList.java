@@ -2,35 +2,54 @@ package form;
 
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.SearchTextField;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
 import entity.Element;
+import entity.GenerateOptions;
 import listener.ICancelListener;
 import listener.IConfirmListener;
-import org.jetbrains.annotations.NotNull;
+import service.CreateViewHolderSettings;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class EntryList extends JPanel {
 
     private Project mProject;
     private Editor mEditor;
     private ArrayList<Element> mElements = new ArrayList<Element>();
-    private ArrayList<Entry> mEntries = new ArrayList<Entry>();
-    private String mPrefix = null;
     private JPanel contentPanel;
-    private JScrollPane mScrollListPane;
+    private EntryTableModel mTableModel;
+    private JBTable mTable;
+    private TableRowSorter<EntryTableModel> mSorter;
+    private SearchTextField mFilter;
+    private JCheckBox mRegex;
     private IConfirmListener mConfirmListener;
     private ICancelListener mCancelListener;
     private JCheckBox mAllCheck;
     private JCheckBox mAuto;
-    private boolean isAutoImplements = false;
+    private JCheckBox mIncremental;
+    private JCheckBox mBindByPath;
+    private JCheckBox mRecyclerView;
+    private CreateViewHolderSettings.Snapshot mSettings;
+    private GenerateOptions mOptions;
     private JButton mConfirm;
     private JButton mCancel;
     private String mViewHolderName = "ViewHolder";
@@ -40,8 +59,11 @@ public class EntryList extends JPanel {
         mEditor = editor;
         mConfirmListener = confirmListener;
         mCancelListener = cancelListener;
+        mSettings = CreateViewHolderSettings.getInstance(project).getSnapshot();
+        mOptions = mSettings.createOptions();
         if (elements != null) {
             mElements.addAll(elements);
+            mSettings.applyDefaults(mElements);
         }
         if (viewHolderName != null && !viewHolderName.equals("")) {
             mViewHolderName = viewHolderName;
@@ -60,64 +82,116 @@ public class EntryList extends JPanel {
         contentPanel = new JPanel();
         contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.PAGE_AXIS));
         contentPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        contentPanel.add(new EntryHeader(new EntryHeader.OnTypeSelected() {
+        contentPanel.add(new EntryHeader(mSettings.fieldNameType, mSettings.fieldNamePrefix, new EntryHeader.OnTypeSelected() {
             @Override
             public void onTypeSelected(int type) {
-                for (Element element : mElements) {
-                    element.fieldNameType = type;
-                }
-
-                contentPanel.remove(mScrollListPane);
-                mScrollListPane = getScrollListPanel();
-                contentPanel.add(mScrollListPane);
-                refresh();
+                mTableModel.setFieldNameType(type);
             }
         }));
         contentPanel.add(Box.createRigidArea(new Dimension(0, 5)));
 
-        mScrollListPane = getScrollListPanel();
-        contentPanel.add(mScrollListPane);
+        mTableModel = new EntryTableModel(mElements);
+        mTable = new JBTable(mTableModel);
+        mSorter = new TableRowSorter<EntryTableModel>(mTableModel);
+        mTable.setRowSorter(mSorter);
+        contentPanel.add(getFilterPanel());
+        contentPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+        mTable.setRowHeight(26);
+        mTable.setDefaultRenderer(String.class, new EntryCellRenderer());
+        mTable.getColumnModel().getColumn(EntryTableModel.COLUMN_USED).setMaxWidth(40);
+        mTable.getColumnModel().getColumn(EntryTableModel.COLUMN_TYPE).setPreferredWidth(100);
+        mTable.getColumnModel().getColumn(EntryTableModel.COLUMN_ID).setPreferredWidth(160);
+        mTable.getColumnModel().getColumn(EntryTableModel.COLUMN_NAME).setPreferredWidth(360);
+        mTable.getColumnModel().getColumn(EntryTableModel.COLUMN_LAZY).setMaxWidth(50);
+        contentPanel.add(new JBScrollPane(mTable));
 
         add(contentPanel, BorderLayout.CENTER);
         refresh();
     }
 
-    private void checkAll(boolean checked) {
-        for (Element element : mElements) {
-            element.used = checked;
-        }
-
-        contentPanel.remove(mScrollListPane);
-        mScrollListPane = getScrollListPanel();
-        contentPanel.add(mScrollListPane);
-        refresh();
-    }
+    private JPanel getFilterPanel() {
+        mFilter = new SearchTextField(false);
+        mFilter.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                updateFilter();
+            }
+        });
 
-    @NotNull
-    private JBScrollPane getScrollListPanel() {
-        JPanel injectionsPanel = new JPanel();
-        injectionsPanel.setLayout(new BoxLayout(injectionsPanel, BoxLayout.PAGE_AXIS));
-        injectionsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+        mRegex = new JCheckBox("Regex");
+        mRegex.addChangeListener(new ChangeListener() {
+            public void stateChanged(ChangeEvent event) {
+                updateFilter();
+            }
+        });
+
+        final JComboBox<String> types = new JComboBox<String>(mTableModel.getTypes().toArray(new String[0]));
+        JButton selectType = new JButton("Select Type");
+        selectType.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (types.getSelectedItem() != null) {
+                    mTableModel.selectType((String) types.getSelectedItem());
+                }
+            }
+        });
 
-        for (int i = 0; i < mElements.size(); i++) {
-            Element element = mElements.get(i);
-            Entry entry = new Entry(this, element);
+        JButton clickableOnly = new JButton("Clickable Only");
+        clickableOnly.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                mTableModel.selectClickableOnly();
+            }
+        });
 
-            if (i > 0) {
-                injectionsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+        JButton editTextOnly = new JButton("EditText Only");
+        editTextOnly.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                mTableModel.selectEditTextOnly();
             }
-            injectionsPanel.add(entry);
+        });
+
+        JPanel filterPanel = new JPanel();
+        filterPanel.setLayout(new BoxLayout(filterPanel, BoxLayout.LINE_AXIS));
+        filterPanel.setMaximumSize(new Dimension(Short.MAX_VALUE, 30));
+        filterPanel.add(mFilter);
+        filterPanel.add(mRegex);
+        filterPanel.add(Box.createRigidArea(new Dimension(20, 0)));
+        filterPanel.add(types);
+        filterPanel.add(selectType);
+        filterPanel.add(clickableOnly);
+        filterPanel.add(editTextOnly);
+        return filterPanel;
+    }
 
-            mEntries.add(entry);
+    private void updateFilter() {
+        final String text = mFilter.getText().trim().toLowerCase(Locale.ENGLISH);
+        if (text.isEmpty()) {
+            mSorter.setRowFilter(null);
+            mFilter.getTextEditor().setForeground(UIManager.getColor("TextField.foreground"));
+            return;
         }
-        injectionsPanel.add(Box.createVerticalGlue());
-        if (mElements.size() < 10) {
-            int count = 10 - mElements.size();
-            injectionsPanel.add(Box.createRigidArea(new Dimension(0, count * 20)));
-        } else {
-            injectionsPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        Pattern regex = null;
+        if (mRegex.isSelected()) {
+            try {
+                regex = Pattern.compile(mFilter.getText().trim(), Pattern.CASE_INSENSITIVE);
+                mFilter.getTextEditor().setForeground(UIManager.getColor("TextField.foreground"));
+            } catch (PatternSyntaxException e) {
+                mFilter.getTextEditor().setForeground(JBColor.RED);
+                return; // keep the last valid filter
+            }
         }
-        return new JBScrollPane(injectionsPanel);
+
+        final Pattern pattern = regex;
+        mSorter.setRowFilter(new RowFilter<EntryTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends EntryTableModel, ? extends Integer> entry) {
+                return entry.getModel().matches(entry.getIdentifier(), text, pattern);
+            }
+        });
+    }
+
+    private void checkAll(boolean checked) {
+        mTableModel.setAllUsed(checked);
     }
 
     private void addButtons() {
@@ -129,12 +203,41 @@ public class EntryList extends JPanel {
         // check all
         mAuto = new JCheckBox();
         mAuto.setPreferredSize(new Dimension(32, 26));
-        mAuto.setSelected(isAutoImplements);
+        mAuto.setSelected(mOptions.autoImplements);
         mAuto.addChangeListener(new CheckAutoListener());
         JLabel mAutoLabel = new JLabel();
         mAutoLabel.setText("Auto Implements");
         mAutoLabel.addMouseListener(new ClickAutoListener());
 
+        // incremental update
+        mIncremental = new JCheckBox();
+        mIncremental.setPreferredSize(new Dimension(32, 26));
+        mIncremental.setSelected(mOptions.incremental);
+        mIncremental.addChangeListener(new CheckIncrementalListener());
+        JLabel mIncrementalLabel = new JLabel();
+        mIncrementalLabel.setText("Incremental Update");
+        mIncrementalLabel.addMouseListener(new ClickIncrementalListener());
+
+        // bind by child indexes
+        mBindByPath = new JCheckBox();
+        mBindByPath.setPreferredSize(new Dimension(32, 26));
+        mBindByPath.setSelected(mOptions.bindByPath);
+        mBindByPath.addChangeListener(new CheckBindByPathListener());
+        JLabel mBindByPathLabel = new JLabel();
+        mBindByPathLabel.setText("Bind By Index");
+        mBindByPathLabel.setToolTipText("Resolve views by child index from the layout, findViewById only when the index does not match");
+        mBindByPathLabel.addMouseListener(new ClickBindByPathListener());
+
+        // RecyclerView.ViewHolder
+        mRecyclerView = new JCheckBox();
+        mRecyclerView.setPreferredSize(new Dimension(32, 26));
+        mRecyclerView.setSelected(mOptions.recyclerView);
+        mRecyclerView.addChangeListener(new CheckRecyclerViewListener());
+        JLabel mRecyclerViewLabel = new JLabel();
+        mRecyclerViewLabel.setText("RecyclerView");
+        mRecyclerViewLabel.setToolTipText("RecyclerView.ViewHolder with create(parent, listener) factory and shared click listener");
+        mRecyclerViewLabel.addMouseListener(new ClickRecyclerViewListener());
+
         // check all
         mAllCheck = new JCheckBox();
         mAllCheck.setPreferredSize(new Dimension(32, 26));
@@ -154,6 +257,15 @@ public class EntryList extends JPanel {
         holderPanel.add(mAuto);
         holderPanel.add(mAutoLabel);
         holderPanel.add(Box.createRigidArea(new Dimension(20, 0)));
+        holderPanel.add(mIncremental);
+        holderPanel.add(mIncrementalLabel);
+        holderPanel.add(Box.createRigidArea(new Dimension(20, 0)));
+        holderPanel.add(mBindByPath);
+        holderPanel.add(mBindByPathLabel);
+        holderPanel.add(Box.createRigidArea(new Dimension(20, 0)));
+        holderPanel.add(mRecyclerView);
+        holderPanel.add(mRecyclerViewLabel);
+        holderPanel.add(Box.createRigidArea(new Dimension(20, 0)));
         holderPanel.add(mViewHodlerLabel);
         holderPanel.add(Box.createHorizontalGlue());
         add(holderPanel, BorderLayout.PAGE_END);
@@ -208,7 +320,7 @@ public class EntryList extends JPanel {
     private class CheckAutoListener implements ChangeListener {
 
         public void stateChanged(ChangeEvent event) {
-            isAutoImplements = mAuto.isSelected();
+            mOptions.autoImplements = mAuto.isSelected();
         }
     }
 
@@ -220,7 +332,7 @@ public class EntryList extends JPanel {
             } else {
                 mAuto.setSelected(true);
             }
-            isAutoImplements = mAuto.isSelected();
+            mOptions.autoImplements = mAuto.isSelected();
         }
 
         @Override
@@ -245,6 +357,51 @@ public class EntryList extends JPanel {
     }
 
 
+    private class CheckIncrementalListener implements ChangeListener {
+
+        public void stateChanged(ChangeEvent event) {
+            mOptions.incremental = mIncremental.isSelected();
+        }
+    }
+
+    private class ClickIncrementalListener extends MouseAdapter {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            mIncremental.setSelected(!mIncremental.isSelected());
+            mOptions.incremental = mIncremental.isSelected();
+        }
+    }
+
+    private class CheckBindByPathListener implements ChangeListener {
+
+        public void stateChanged(ChangeEvent event) {
+            mOptions.bindByPath = mBindByPath.isSelected();
+        }
+    }
+
+    private class ClickBindByPathListener extends MouseAdapter {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            mBindByPath.setSelected(!mBindByPath.isSelected());
+            mOptions.bindByPath = mBindByPath.isSelected();
+        }
+    }
+
+    private class CheckRecyclerViewListener implements ChangeListener {
+
+        public void stateChanged(ChangeEvent event) {
+            mOptions.recyclerView = mRecyclerView.isSelected();
+        }
+    }
+
+    private class ClickRecyclerViewListener extends MouseAdapter {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            mRecyclerView.setSelected(!mRecyclerView.isSelected());
+            mOptions.recyclerView = mRecyclerView.isSelected();
+        }
+    }
+
     private class CheckAllListener implements ChangeListener {
 
         public void stateChanged(ChangeEvent event) {
@@ -287,20 +444,44 @@ public class EntryList extends JPanel {
     private class ConfirmAction extends AbstractAction {
 
         public void actionPerformed(ActionEvent event) {
-            boolean valid = checkValidity();
-
-            for (Entry entry : mEntries) {
-                entry.syncElement();
+            if (mTable.isEditing()) {
+                mTable.getCellEditor().stopCellEditing();
             }
+            boolean valid = checkValidity();
+            mTable.repaint();
 
             if (valid) {
                 if (mConfirmListener != null) {
-                    mConfirmListener.onConfirm(mProject, mEditor, mViewHolderName, mElements, mPrefix, isAutoImplements);
+                    mConfirmListener.onConfirm(mProject, mEditor, mViewHolderName, mElements, mOptions);
                 }
             }
         }
     }
 
+    /**
+     * Disabled look of unused rows, invalid field names are highlighted
+     */
+    private class EntryCellRenderer extends DefaultTableCellRenderer {
+
+        private final Color mNameErrorColor = new Color(0x880000);
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+
+            Element element = mTableModel.getElement(table.convertRowIndexToModel(row));
+            int modelColumn = table.convertColumnIndexToModel(column);
+            setEnabled(element.used);
+            setToolTipText(modelColumn == EntryTableModel.COLUMN_ID ? element.source : null);
+            if (modelColumn == EntryTableModel.COLUMN_NAME && element.used && !element.checkValidity()) {
+                setBackground(mNameErrorColor);
+            } else if (!isSelected) {
+                setBackground(table.getBackground());
+            }
+            return this;
+        }
+    }
+
     private class CancelAction extends AbstractAction {
 
         public void actionPerformed(ActionEvent event) {
@@ -0,0 +1,172 @@
+package form;
+
+import entity.Element;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Elements of the dialog as table rows, changes of the selection or naming style only update the model
+ */
+public class EntryTableModel extends AbstractTableModel {
+
+    public static final int COLUMN_USED = 0;
+    public static final int COLUMN_TYPE = 1;
+    public static final int COLUMN_ID = 2;
+    public static final int COLUMN_NAME = 3;
+    public static final int COLUMN_LAZY = 4;
+
+    private static final String[] COLUMN_NAMES = {"", "Element", "ID", "VarName", "Lazy"};
+
+    private final List<Element> mElements;
+    private final String[] mSearchKeys; // lower case "id type" per row, built once for filtering
+
+    public EntryTableModel(List<Element> elements) {
+        mElements = elements;
+        mSearchKeys = new String[elements.size()];
+        for (int i = 0; i < mSearchKeys.length; i++) {
+            Element element = elements.get(i);
+            mSearchKeys[i] = (element.id + " " + element.name).toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    public Element getElement(int row) {
+        return mElements.get(row);
+    }
+
+    public void setAllUsed(boolean used) {
+        for (Element element : mElements) {
+            element.used = used;
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Does the row match filter text
+     *
+     * @param row
+     * @param text  lower case substring of ID or view type
+     * @param regex pattern matched against the ID, used instead of the text when not null
+     * @return
+     */
+    public boolean matches(int row, String text, Pattern regex) {
+        if (regex != null) {
+            return regex.matcher(mElements.get(row).id).find();
+        }
+        return mSearchKeys[row].contains(text);
+    }
+
+    /**
+     * Select all elements of given view type, other elements keep their selection
+     *
+     * @param type
+     */
+    public void selectType(String type) {
+        for (Element element : mElements) {
+            if (element.name.equals(type)) {
+                element.used = true;
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Select clickable elements and unselect the rest
+     */
+    public void selectClickableOnly() {
+        for (Element element : mElements) {
+            element.used = element.isClickable() || element.isLongClickable();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Select EditText elements and unselect the rest
+     */
+    public void selectEditTextOnly() {
+        for (Element element : mElements) {
+            element.used = element.isEditText();
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Distinct view types in layout order
+     *
+     * @return
+     */
+    public List<String> getTypes() {
+        Set<String> types = new LinkedHashSet<String>();
+        for (Element element : mElements) {
+            types.add(element.name);
+        }
+        return new ArrayList<String>(types);
+    }
+
+    public void setFieldNameType(int type) {
+        for (Element element : mElements) {
+            element.setFieldNameType(type);
+        }
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return mElements.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COLUMN_USED || column == COLUMN_LAZY ? Boolean.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == COLUMN_USED || (column == COLUMN_LAZY && mElements.get(row).canBeLazy());
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Element element = mElements.get(row);
+        switch (column) {
+            case COLUMN_USED:
+                return element.used;
+            case COLUMN_TYPE:
+                return element.name;
+            case COLUMN_ID:
+                return element.id;
+            case COLUMN_NAME:
+                return element.getFieldName();
+            case COLUMN_LAZY:
+                return element.lazy;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column == COLUMN_USED) {
+            mElements.get(row).used = Boolean.TRUE.equals(value);
+            fireTableRowsUpdated(row, row);
+        } else if (column == COLUMN_LAZY) {
+            mElements.get(row).lazy = Boolean.TRUE.equals(value);
+            fireTableRowsUpdated(row, row);
+        }
+    }
+}
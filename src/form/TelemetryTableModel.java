@@ -0,0 +1,77 @@
+package form;
+
+import service.GenerationTelemetry;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Statistics of generation phases, one row per phase
+ */
+public class TelemetryTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"Phase", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms",
+            "Elements", "PSI events", "p50 allocated", "p90 allocated"};
+
+    private List<GenerationTelemetry.PhaseStats> mStats = new ArrayList<GenerationTelemetry.PhaseStats>();
+
+    public void setStats(List<GenerationTelemetry.PhaseStats> stats) {
+        mStats = stats;
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return mStats.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        GenerationTelemetry.PhaseStats stats = mStats.get(row);
+        switch (column) {
+            case 0:
+                return stats.phase;
+            case 1:
+                return String.valueOf(stats.count);
+            case 2:
+                return format(stats.p50Ms);
+            case 3:
+                return format(stats.p90Ms);
+            case 4:
+                return format(stats.p99Ms);
+            case 5:
+                return format(stats.maxMs);
+            case 6:
+                return format(stats.meanElements);
+            case 7:
+                return format(stats.meanPsiEvents);
+            case 8:
+                return formatBytes(stats.p50AllocatedBytes);
+            default:
+                return formatBytes(stats.p90AllocatedBytes);
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.1f", value);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 0) {
+            return "n/a"; // not counted by the JVM
+        }
+        return bytes < 1024 * 1024 ? (bytes / 1024) + " KB" : String.format(Locale.ENGLISH, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,118 @@
+package form;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+import service.GenerationTelemetry;
+import utils.Utils;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tool window with percentiles of generation phases, refreshed as phases are recorded
+ */
+public class TelemetryToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    @Override
+    public void createToolWindowContent(@NotNull final Project project, @NotNull ToolWindow toolWindow) {
+        final GenerationTelemetry telemetry = GenerationTelemetry.getInstance(project);
+        final TelemetryTableModel tableModel = new TelemetryTableModel();
+        tableModel.setStats(telemetry.getStats());
+        JBTable table = new JBTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+
+        JButton reset = new JButton("Reset");
+        reset.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                telemetry.reset();
+            }
+        });
+
+        JButton exportJson = new JButton("Export JSON");
+        exportJson.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                export(project, "json", telemetry.toJson());
+            }
+        });
+
+        JButton exportCsv = new JButton("Export CSV");
+        exportCsv.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                export(project, "csv", telemetry.toCsv());
+            }
+        });
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.LINE_AXIS));
+        buttonPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        buttonPanel.add(reset);
+        buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+        buttonPanel.add(exportJson);
+        buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+        buttonPanel.add(exportCsv);
+        buttonPanel.add(Box.createHorizontalGlue());
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(buttonPanel, BorderLayout.PAGE_START);
+        panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+
+        // phases are recorded in bursts from any thread, the table is refreshed once per burst
+        final AtomicBoolean pending = new AtomicBoolean();
+        final Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                if (pending.compareAndSet(false, true)) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            pending.set(false);
+                            tableModel.setStats(telemetry.getStats());
+                        }
+                    });
+                }
+            }
+        };
+        telemetry.addListener(listener);
+
+        Content content = ContentFactory.SERVICE.getInstance().createContent(panel, "", false);
+        Disposer.register(content, new Disposable() {
+            @Override
+            public void dispose() {
+                telemetry.removeListener(listener);
+            }
+        });
+        toolWindow.getContentManager().addContent(content);
+    }
+
+    private static void export(Project project, String extension, String text) {
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Telemetry", "Save statistics of generation phases", extension);
+        VirtualFileWrapper wrapper = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project)
+                .save(project.getBaseDir(), "createViewHolder-telemetry." + extension);
+        if (wrapper == null) {
+            return; // cancelled
+        }
+
+        try {
+            FileUtil.writeToFile(wrapper.getFile(), text);
+        } catch (IOException e) {
+            Utils.showErrorNotification(project, "Can not export telemetry: " + e.getMessage());
+        }
+    }
+}
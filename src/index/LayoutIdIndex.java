@@ -0,0 +1,187 @@
+package index;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import entity.LayoutTag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import utils.Utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout name -> tags with android:id and includes, so the action does not need to walk the layout PSI
+ */
+public class LayoutIdIndex extends FileBasedIndexExtension<String, List<LayoutTag>> {
+
+    public static final ID<String, List<LayoutTag>> NAME = ID.create("CreateViewHolder.LayoutIdIndex");
+
+    private static final int VERSION = 4;
+
+    @NotNull
+    @Override
+    public ID<String, List<LayoutTag>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<LayoutTag>, FileContent> getIndexer() {
+        return new DataIndexer<String, List<LayoutTag>, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, List<LayoutTag>> map(@NotNull FileContent inputData) {
+                List<LayoutTag> tags = Utils.collectLayoutTags(inputData.getPsiFile());
+                String name = FileUtil.getNameWithoutExtension(inputData.getFileName());
+                return Collections.singletonMap(name, tags);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<LayoutTag>> getValueExternalizer() {
+        return new DataExternalizer<List<LayoutTag>>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<LayoutTag> value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.size());
+                for (LayoutTag tag : value) {
+                    writeString(out, tag.tagName);
+                    writeString(out, tag.className);
+                    writeString(out, tag.id);
+                    out.writeBoolean(tag.clickable);
+                    out.writeBoolean(tag.longClickable);
+                    writeString(out, tag.hint);
+                    writeString(out, tag.include);
+                    out.writeBoolean(tag.root);
+                    writeString(out, tag.source);
+                    writeString(out, tag.path);
+                    writeString(out, tag.stubLayout);
+                    writeString(out, tag.inflatedId);
+                }
+            }
+
+            @Override
+            public List<LayoutTag> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<LayoutTag> tags = new ArrayList<LayoutTag>(size);
+                for (int i = 0; i < size; i++) {
+                    String tagName = readString(in);
+                    String className = readString(in);
+                    String id = readString(in);
+                    boolean clickable = in.readBoolean();
+                    boolean longClickable = in.readBoolean();
+                    String hint = readString(in);
+                    LayoutTag tag = new LayoutTag(tagName, className, id, clickable, longClickable, hint);
+                    tag.include = readString(in);
+                    tag.root = in.readBoolean();
+                    tag.source = readString(in);
+                    tag.path = readString(in);
+                    tag.stubLayout = readString(in);
+                    tag.inflatedId = readString(in);
+                    tags.add(tag);
+                }
+                return tags;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                VirtualFile parent = file.getParent();
+                return parent != null && parent.getName().startsWith("layout");
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Read precomputed tags of layout
+     *
+     * @param layout
+     * @return tags or null when the index can not be used (dumb mode, unsaved changes, file out of index)
+     */
+    @Nullable
+    public static List<LayoutTag> getLayoutTags(PsiFile layout) {
+        VirtualFile file = layout.getVirtualFile();
+        if (file == null) {
+            return null; // in-memory file
+        }
+        Project project = layout.getProject();
+        if (DumbService.isDumb(project)) {
+            return null; // index is not ready
+        }
+        Document document = PsiDocumentManager.getInstance(project).getCachedDocument(layout);
+        if (FileDocumentManager.getInstance().isFileModified(file)
+                || (document != null && PsiDocumentManager.getInstance(project).isUncommited(document))) {
+            return null; // index would be stale
+        }
+
+        try {
+            String name = FileUtil.getNameWithoutExtension(file.getName());
+            List<List<LayoutTag>> values = FileBasedIndex.getInstance().getValues(NAME, name, GlobalSearchScope.fileScope(project, file));
+            if (values.isEmpty()) {
+                return null; // file is not indexed
+            }
+            return values.get(0);
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            IOUtil.writeUTF(out, value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? IOUtil.readUTF(in) : null;
+    }
+}
@@ -0,0 +1,93 @@
+package index;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import entity.LayoutTag;
+import org.jetbrains.annotations.NotNull;
+import utils.Utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Included or ViewStub layout name -> name of the layout including it, so layouts affected by a change are found
+ * without reading the tags of every layout
+ */
+public class LayoutIncludeIndex extends FileBasedIndexExtension<String, String> {
+
+    public static final ID<String, String> NAME = ID.create("CreateViewHolder.LayoutIncludeIndex");
+
+    private static final int VERSION = 1;
+
+    @NotNull
+    @Override
+    public ID<String, String> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, String, FileContent> getIndexer() {
+        return new DataIndexer<String, String, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, String> map(@NotNull FileContent inputData) {
+                String name = FileUtil.getNameWithoutExtension(inputData.getFileName());
+                Map<String, String> included = new HashMap<String, String>();
+                for (LayoutTag tag : Utils.collectLayoutTags(inputData.getPsiFile())) {
+                    if (tag.include != null) {
+                        included.put(tag.include, name);
+                    }
+                    if (tag.stubLayout != null) {
+                        included.put(tag.stubLayout, name);
+                    }
+                }
+                return included;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<String> getValueExternalizer() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE) {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                VirtualFile parent = file.getParent();
+                return parent != null && parent.getName().startsWith("layout");
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+}
@@ -0,0 +1,195 @@
+package inspection;
+
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiSearchHelper;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.xml.XmlFile;
+import com.intellij.util.Alarm;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import index.LayoutIncludeIndex;
+import org.jetbrains.annotations.NotNull;
+import utils.Utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Re-runs the stale ViewHolder inspection only in files of holders whose layout changed. Holders are found by the
+ * layout name in their "create by" comment through the word index, layouts including the changed one or inflating
+ * it by ViewStub are taken from the include index. Changes are coalesced and processed after a quiet period.
+ */
+public class LayoutChangeTracker implements ProjectComponent {
+
+    private static final int DELAY = 500; // ms
+
+    private final Project mProject;
+    private final Set<String> mChangedLayouts = new LinkedHashSet<String>(); // names without extension
+    private Alarm mAlarm;
+
+    public LayoutChangeTracker(Project project) {
+        mProject = project;
+    }
+
+    @Override
+    public void projectOpened() {
+        mAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, mProject);
+        PsiManager.getInstance(mProject).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                layoutChanged(event.getFile());
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                layoutChanged(event.getFile());
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                layoutChanged(event.getFile());
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                layoutChanged(event.getFile());
+            }
+        }, mProject);
+    }
+
+    @Override
+    public void projectClosed() {
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "CreateViewHolder.LayoutChangeTracker";
+    }
+
+    private void layoutChanged(PsiFile file) {
+        if (!(file instanceof XmlFile)) {
+            return;
+        }
+        PsiDirectory directory = file.getParent();
+        if (directory == null || !directory.getName().startsWith("layout")) {
+            return; // not a layout
+        }
+
+        synchronized (mChangedLayouts) {
+            mChangedLayouts.add(FileUtil.getNameWithoutExtension(file.getName()));
+        }
+        // every edit postpones the update until the layouts are quiet
+        mAlarm.cancelAllRequests();
+        mAlarm.addRequest(new Runnable() {
+            @Override
+            public void run() {
+                restartHighlighting();
+            }
+        }, DELAY);
+    }
+
+    private void restartHighlighting() {
+        final Set<String> layouts;
+        synchronized (mChangedLayouts) {
+            layouts = new HashSet<String>(mChangedLayouts);
+            mChangedLayouts.clear();
+        }
+
+        // indexes are needed, the inspection runs again after indexing anyway
+        final List<PsiFile> files = new ArrayList<PsiFile>();
+        DumbService.getInstance(mProject).runReadActionInSmartMode(new Runnable() {
+            @Override
+            public void run() {
+                files.addAll(findHolderFiles(getAffectedLayouts(layouts)));
+            }
+        });
+
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                for (PsiFile file : files) {
+                    if (file.isValid()) {
+                        DaemonCodeAnalyzer.getInstance(mProject).restart(file);
+                    }
+                }
+            }
+        }, mProject.getDisposed());
+    }
+
+    /**
+     * Changed layouts and all layouts including them, directly or through other layouts
+     *
+     * @param layouts names without extension
+     * @return
+     */
+    private Set<String> getAffectedLayouts(Set<String> layouts) {
+        FileBasedIndex index = FileBasedIndex.getInstance();
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(mProject);
+        Set<String> affected = new HashSet<String>(layouts);
+        Deque<String> queue = new ArrayDeque<String>(layouts);
+        while (!queue.isEmpty()) {
+            // layouts including the name, only the changed names are looked up
+            for (String name : index.getValues(LayoutIncludeIndex.NAME, queue.poll(), scope)) {
+                if (affected.add(name)) {
+                    queue.add(name);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Java files with holders generated from the layouts
+     *
+     * @param layouts names without extension
+     * @return
+     */
+    private Set<PsiFile> findHolderFiles(Set<String> layouts) {
+        final Set<PsiFile> files = new LinkedHashSet<PsiFile>();
+        GlobalSearchScope scope = GlobalSearchScope.getScopeRestrictedByFileTypes(GlobalSearchScope.projectScope(mProject),
+                JavaFileType.INSTANCE);
+        for (final String layout : layouts) {
+            // holder comment: // XViewHolder create by layout.xml
+            PsiSearchHelper.SERVICE.getInstance(mProject).processAllFilesWithWordInComments(layout, scope, new Processor<PsiFile>() {
+                @Override
+                public boolean process(PsiFile file) {
+                    for (PsiClass holder : PsiTreeUtil.findChildrenOfType(file, PsiClass.class)) {
+                        if ((layout + ".xml").equals(Utils.getHolderLayoutFileName(holder))) {
+                            files.add(file);
+                            break;
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+        return files;
+    }
+}
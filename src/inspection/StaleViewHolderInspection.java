@@ -0,0 +1,202 @@
+package inspection;
+
+import com.intellij.codeInspection.BaseJavaLocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.codeStyle.JavaCodeStyleManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import entity.Element;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+import service.CreateViewHolderSettings;
+import utils.Utils;
+import utils.ViewHolderUpdater;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports generated ViewHolders whose bound IDs were removed from the layout or changed their view type
+ */
+public class StaleViewHolderInspection extends BaseJavaLocalInspectionTool {
+
+    @Nls
+    @NotNull
+    @Override
+    public String getGroupDisplayName() {
+        return "CreateViewHolder";
+    }
+
+    @Nls
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return "ViewHolder out of date with layout";
+    }
+
+    @NotNull
+    @Override
+    public String getShortName() {
+        return "StaleViewHolder";
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new JavaElementVisitor() {
+            @Override
+            public void visitClass(PsiClass aClass) {
+                super.visitClass(aClass);
+
+                if (aClass.getContainingClass() == null || aClass.getNameIdentifier() == null) {
+                    return; // generated holders are always inner classes
+                }
+                String layoutFileName = Utils.getHolderLayoutFileName(aClass);
+                if (layoutFileName == null) {
+                    return; // not generated
+                }
+
+                List<String> problems = findProblems(aClass, layoutFileName);
+                if (problems == null || problems.isEmpty()) {
+                    return;
+                }
+
+                StringBuilder sb = new StringBuilder();
+                sb.append(aClass.getName()).append(" is out of date with ").append(layoutFileName).append(": ");
+                for (int i = 0; i < problems.size(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(problems.get(i));
+                }
+                holder.registerProblem(aClass.getNameIdentifier(), sb.toString(), ProblemHighlightType.GENERIC_ERROR_OR_WARNING,
+                        new UpdateViewHolderFix(layoutFileName));
+            }
+        };
+    }
+
+    /**
+     * Compare bound fields of holder with the layout
+     *
+     * @return description of every removed or changed ID, null when the layout or holder can not be read
+     */
+    private static List<String> findProblems(PsiClass holder, String layoutFileName) {
+        Map<String, PsiField> bound = ViewHolderUpdater.getBoundFields(holder);
+        List<Element> elements = getLayoutElements(holder, layoutFileName);
+        if (bound == null || elements == null) {
+            return null;
+        }
+
+        List<String> problems = new ArrayList<String>();
+        for (Map.Entry<String, PsiField> entry : bound.entrySet()) {
+            Element element = findElement(elements, entry.getKey());
+            String type = entry.getValue().getType().getPresentableText();
+            if (element == null) {
+                problems.add(entry.getKey() + " removed");
+            } else if (!element.name.equals(type)) {
+                problems.add(entry.getKey() + " changed to " + element.name);
+            }
+        }
+        return problems;
+    }
+
+    private static List<Element> getLayoutElements(PsiClass holder, String layoutFileName) {
+        PsiFile file = holder.getContainingFile();
+        String layoutName = layoutFileName.substring(0, layoutFileName.length() - ".xml".length());
+        PsiFile layout = Utils.findLayoutResource(file, holder.getProject(), layoutName);
+        if (layout == null) {
+            return null;
+        }
+        return Utils.getIDsFromLayout(layout);
+    }
+
+    private static Element findElement(List<Element> elements, String fullID) {
+        for (Element element : elements) {
+            if (element.getFullID().equals(fullID)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static class UpdateViewHolderFix implements LocalQuickFix {
+
+        private final String mLayoutFileName;
+
+        UpdateViewHolderFix(String layoutFileName) {
+            mLayoutFileName = layoutFileName;
+        }
+
+        @Nls
+        @NotNull
+        @Override
+        public String getName() {
+            return "Update ViewHolder from " + mLayoutFileName;
+        }
+
+        @Nls
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return "Update ViewHolder from layout";
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement element = descriptor.getPsiElement();
+            PsiClass holder = PsiTreeUtil.getParentOfType(element, PsiClass.class);
+            if (holder == null || holder.getName() == null) {
+                return;
+            }
+            Map<String, PsiField> bound = ViewHolderUpdater.getBoundFields(holder);
+            List<Element> elements = getLayoutElements(holder, mLayoutFileName);
+            if (bound == null || elements == null) {
+                return;
+            }
+
+            // keep the selection of the holder, removed IDs are dropped and changed IDs are rebound
+            CreateViewHolderSettings.Snapshot settings = CreateViewHolderSettings.getInstance(project).getSnapshot();
+            settings.applyDefaults(elements);
+            for (Element layoutElement : elements) {
+                layoutElement.used = bound.containsKey(layoutElement.getFullID());
+                PsiField field = bound.get(layoutElement.getFullID());
+                if (field != null) {
+                    // naming style that produced the existing field
+                    for (int type = 3; type >= 1; type--) {
+                        layoutElement.setFieldNameType(type);
+                        if (layoutElement.getFieldName().equals(field.getName())) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            String viewHolderName = Utils.getViewHolderName(mLayoutFileName);
+            String modelClassName = viewHolderName + settings.modelSuffix;
+            ViewHolderUpdater updater = new ViewHolderUpdater(holder, modelClassName, elements,
+                    ViewHolderUpdater.isAutoImplemented(holder));
+            if (!updater.update()) {
+                return;
+            }
+
+            // inserted members are formatted like those of the action
+            JavaCodeStyleManager styleManager = JavaCodeStyleManager.getInstance(project);
+            for (PsiElement added : updater.getAddedElements()) {
+                if (added.isValid()) {
+                    CodeStyleManager.getInstance(project).reformat(styleManager.shortenClassReferences(added));
+                }
+            }
+        }
+    }
+}
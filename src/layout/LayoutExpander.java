@@ -0,0 +1,259 @@
+package layout;
+
+import entity.Element;
+import entity.LayoutTag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds elements of layout from tags of single files, independent of the IDE. Includes are expanded,
+ * variants of the layout are merged and IDs of ViewStub layouts are collected. Every layout is expanded
+ * once per expander and reused by all layouts that include it.
+ *
+ * @param <F> layout file
+ */
+public abstract class LayoutExpander<F> {
+
+    private final Map<F, List<LayoutTag>> mExpanded = new HashMap<F, List<LayoutTag>>();
+    private final Map<String, F> mResolved = new HashMap<String, F>();
+    private final Set<F> mVisiting = new HashSet<F>();
+
+    /**
+     * Tags of single layout without expanded includes
+     *
+     * @param layout
+     * @return
+     */
+    protected abstract List<LayoutTag> getTags(F layout);
+
+    /**
+     * Layout referenced by name from another layout
+     *
+     * @param from layout containing the reference
+     * @param name layout name without extension
+     * @return layout or null when not found
+     */
+    protected abstract F findLayout(F from, String name);
+
+    /**
+     * Called for every expanded include, e.g. to check cancellation
+     */
+    protected void checkCanceled() {
+    }
+
+    /**
+     * Called for tag with malformed android:id, the tag gets no element
+     *
+     * @param tag
+     * @param e
+     */
+    protected void onInvalidTag(LayoutTag tag, IllegalArgumentException e) {
+    }
+
+    /**
+     * Tags of layout with all includes replaced by the tags of included layouts
+     *
+     * @param layout
+     * @return
+     */
+    public List<LayoutTag> expand(F layout) {
+        List<LayoutTag> expanded = mExpanded.get(layout);
+        if (expanded != null) {
+            return expanded;
+        }
+        if (!mVisiting.add(layout)) {
+            return Collections.emptyList(); // include cycle
+        }
+
+        try {
+            expanded = new ArrayList<LayoutTag>();
+            for (LayoutTag tag : getTags(layout)) {
+                if (tag.include == null) {
+                    expanded.add(tag);
+                    continue;
+                }
+
+                checkCanceled();
+                F include = resolve(layout, tag.include);
+                if (include == null) {
+                    continue; // unknown layout
+                }
+
+                List<LayoutTag> includedTags = expand(include);
+                boolean merge = !hasRoot(includedTags);
+                for (LayoutTag includedTag : includedTags) {
+                    includedTag = includedTag.copy();
+                    if (includedTag.root) {
+                        // android:id of the include tag overrides ID of the included root view
+                        if (tag.id != null) {
+                            includedTag.id = tag.id;
+                        }
+                        includedTag.root = false;
+                    }
+                    // included root view takes place of the include tag
+                    if (merge || tag.path == null || includedTag.path == null) {
+                        includedTag.path = null;
+                    } else if (!includedTag.path.isEmpty()) {
+                        includedTag.path = tag.path.isEmpty() ? includedTag.path : tag.path + "/" + includedTag.path;
+                    } else {
+                        includedTag.path = tag.path;
+                    }
+                    expanded.add(includedTag);
+                }
+            }
+
+            mExpanded.put(layout, expanded);
+            return expanded;
+        } finally {
+            mVisiting.remove(layout);
+        }
+    }
+
+    /**
+     * Tags of layout referenced from another layout, e.g. by ViewStub
+     *
+     * @param from layout containing the reference
+     * @param name name of referenced layout
+     * @return expanded tags or empty list when the layout is not found
+     */
+    public List<LayoutTag> expand(F from, String name) {
+        F layout = resolve(from, name);
+        return layout != null ? expand(layout) : Collections.<LayoutTag>emptyList();
+    }
+
+    /**
+     * Elements of all IDs in variants of the layout (layout-land, layout-sw600dp etc.)
+     *
+     * @param variants layout first, then its other variants
+     * @param elements receives the elements
+     * @return
+     */
+    public ArrayList<Element> getElements(List<F> variants, ArrayList<Element> elements) {
+        Set<String> optional = new HashSet<String>();
+        List<LayoutTag> tags = getVariantTags(variants, optional);
+
+        for (LayoutTag tag : tags) {
+            try {
+                Element e = new Element(tag);
+                e.optional = optional.contains(getIdKey(tag.id));
+                if (tag.stubLayout != null) {
+                    e.setStubElements(getStubElements(variants.get(0), tag));
+                }
+                elements.add(e);
+            } catch (IllegalArgumentException e) {
+                onInvalidTag(tag, e);
+            }
+        }
+
+        return elements;
+    }
+
+    /**
+     * Tags with ID of all variants of the layout, the layout itself first.
+     * Tags of IDs found in other variants only are appended without child path, child path is dropped when variants differ.
+     *
+     * @param variants
+     * @param optional receives IDs missing in some variants
+     * @return
+     */
+    private List<LayoutTag> getVariantTags(List<F> variants, Set<String> optional) {
+        List<LayoutTag> tags = new ArrayList<LayoutTag>();
+        Map<String, LayoutTag> known = new HashMap<String, LayoutTag>();
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (F variant : variants) {
+            Set<String> ids = new HashSet<String>();
+            for (LayoutTag tag : expand(variant)) {
+                if (tag.id == null || tag.include != null) {
+                    continue; // structural tag without ID
+                }
+                String key = getIdKey(tag.id);
+                LayoutTag first = known.get(key);
+                if (first == null) {
+                    first = tag.copy();
+                    if (variant != variants.get(0)) {
+                        first.path = null; // missing in the layout itself, path of other variant would be wrong there
+                    }
+                    known.put(key, first);
+                    tags.add(first);
+                } else if (variant == variants.get(0)) {
+                    tags.add(tag); // duplicated ID, reported as is
+                } else if (first.path != null && !first.path.equals(tag.path)) {
+                    first.path = null; // position differs, find by ID
+                }
+                if (ids.add(key)) {
+                    Integer count = counts.get(key);
+                    counts.put(key, count == null ? 1 : count + 1);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() < variants.size()) {
+                optional.add(entry.getKey());
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * IDs of layout inflated by ViewStub, they are not part of the hierarchy until the stub is inflated
+     *
+     * @param layout
+     * @param stub
+     * @return
+     */
+    private List<Element> getStubElements(F layout, LayoutTag stub) {
+        List<Element> elements = new ArrayList<Element>();
+        for (LayoutTag tag : expand(layout, stub.stubLayout)) {
+            if (tag.root && stub.inflatedId != null) {
+                // android:inflatedId replaces ID of the inflated root view
+                tag = tag.copy();
+                tag.id = stub.inflatedId;
+            }
+            if (tag.id == null || tag.include != null) {
+                continue;
+            }
+            try {
+                elements.add(new Element(tag));
+            } catch (IllegalArgumentException e) {
+                onInvalidTag(tag, e);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Value of android:id comparable between layouts
+     *
+     * @param id
+     * @return @id/name for @+id/name and @id/name
+     */
+    public static String getIdKey(String id) {
+        return id.replace("@+", "@"); // @+id/name and @id/name are the same ID
+    }
+
+    private static boolean hasRoot(List<LayoutTag> tags) {
+        for (LayoutTag tag : tags) {
+            if (tag.root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private F resolve(F layout, String name) {
+        if (mResolved.containsKey(name)) {
+            return mResolved.get(name);
+        }
+
+        F include = findLayout(layout, name);
+        mResolved.put(name, include);
+        return include;
+    }
+}
@@ -0,0 +1,272 @@
+package layout;
+
+import entity.LayoutTag;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads layout tags with StAX, the same tags as the PSI visitor of the plugin collects. Single forward pass,
+ * attributes of every tag are read once and subtrees that can not contain views are skipped unread.
+ */
+public class LayoutReader {
+
+    private static final XMLInputFactory sFactory = createFactory();
+    private static final int MAP_THRESHOLD = 256 * 1024; // smaller files are cheaper to read than to map
+
+    /**
+     * Tags with ID, includes and the root view of layout file
+     *
+     * @param file
+     * @return
+     * @throws IOException when the file can not be read or is not well-formed
+     */
+    public static List<LayoutTag> read(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size > MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // read the whole file
+                }
+                buffer.flip();
+            }
+            return read(new ByteBufferInputStream(buffer), file.getName());
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Tags with ID, includes and the root view of layout
+     *
+     * @param in
+     * @param source name of the layout file
+     * @return
+     * @throws IOException when the layout is not well-formed
+     */
+    public static List<LayoutTag> read(InputStream in, String source) throws IOException {
+        List<LayoutTag> tags = new ArrayList<LayoutTag>();
+        List<Level> levels = new ArrayList<Level>();
+        try {
+            XMLStreamReader reader = sFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        levels.remove(levels.size() - 1);
+                    } else if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = getName(reader.getPrefix(), reader.getLocalName());
+                        String path = getPath(levels, name);
+                        if (!levels.isEmpty() && isSkipped(name)) {
+                            skipSubtree(reader);
+                            continue;
+                        }
+                        levels.add(new Level(path));
+
+                        LayoutTag tag = readTag(reader, name, levels.size() == 1);
+                        if (tag != null) {
+                            tag.source = source;
+                            tag.path = path;
+                            tags.add(tag);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(source + ": " + e.getMessage(), e);
+        }
+        return tags;
+    }
+
+    /**
+     * Get layout name from XML identifier (@layout/....)
+     *
+     * @param layout
+     * @return
+     */
+    public static String getLayoutName(String layout) {
+        if (layout == null || !layout.startsWith("@") || !layout.contains("/")) {
+            return null; // it's not layout identifier
+        }
+
+        String[] parts = layout.split("/");
+        if (parts.length != 2) {
+            return null; // not enough parts
+        }
+
+        return parts[1];
+    }
+
+    private static LayoutTag readTag(XMLStreamReader reader, String name, boolean root) {
+        // single pass over attributes, only the used ones are materialized
+        String id = null;
+        String className = null;
+        String layout = null;
+        String androidLayout = null;
+        String inflatedId = null;
+        String hint = null;
+        boolean clickable = false;
+        boolean longClickable = false;
+        for (int i = 0, count = reader.getAttributeCount(); i < count; i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String localName = reader.getAttributeLocalName(i);
+            if (prefix == null || prefix.isEmpty()) {
+                if (localName.equals("class")) {
+                    className = reader.getAttributeValue(i);
+                } else if (localName.equals("layout")) {
+                    layout = reader.getAttributeValue(i);
+                }
+            } else if (prefix.equals("android")) {
+                if (localName.equals("id")) {
+                    id = reader.getAttributeValue(i);
+                } else if (localName.equals("clickable")) {
+                    clickable = "true".equals(reader.getAttributeValue(i));
+                } else if (localName.equals("longClickable")) {
+                    longClickable = "true".equals(reader.getAttributeValue(i));
+                } else if (localName.equals("hint")) {
+                    hint = reader.getAttributeValue(i);
+                } else if (localName.equals("layout")) {
+                    androidLayout = reader.getAttributeValue(i);
+                } else if (localName.equals("inflatedId")) {
+                    inflatedId = reader.getAttributeValue(i);
+                }
+            }
+        }
+
+        String include = null;
+        if (name.equalsIgnoreCase("include")) {
+            include = getLayoutName(layout);
+            if (include == null) {
+                return null; // missing layout attribute
+            }
+        } else if (id == null && (!root || name.equalsIgnoreCase("merge"))) {
+            return null; // missing android:id attribute
+        }
+
+        LayoutTag tag = new LayoutTag(name, className, id, clickable, longClickable, hint);
+        tag.include = include;
+        tag.root = root;
+        if (name.equals("ViewStub")) {
+            tag.stubLayout = getLayoutName(androidLayout);
+            tag.inflatedId = inflatedId;
+        }
+        return tag;
+    }
+
+    /**
+     * Tags whose content can not contain views, data of data binding and inline resources of aapt.
+     * The tag itself still takes a child index like in the PSI visitor.
+     */
+    private static boolean isSkipped(String name) {
+        return name.equals("data") || name.equals("aapt:attr") || name.equals("requestFocus");
+    }
+
+    private static void skipSubtree(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Child path of the started tag, counts the tag as a child of its parent
+     */
+    private static String getPath(List<Level> levels, String name) {
+        if (levels.isEmpty()) {
+            // children of merge are attached to a parent unknown here
+            return name.equalsIgnoreCase("merge") || name.equals("layout") ? null : "";
+        }
+
+        Level parent = levels.get(levels.size() - 1);
+        String path = null;
+        if (parent.path != null && !parent.include) {
+            path = parent.path.isEmpty() ? String.valueOf(parent.children) : parent.path + "/" + parent.children;
+        }
+        if (name.equalsIgnoreCase("include")) {
+            parent.include = true; // included merge adds unknown number of children
+        } else if (!name.equals("requestFocus") && !name.equals("tag")) {
+            parent.children++; // view counts as a child, requestFocus and tag do not
+        }
+        return path;
+    }
+
+    private static String getName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /**
+     * Stream over heap or mapped buffer, no copy of the file content
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer mBuffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!mBuffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, mBuffer.remaining());
+            mBuffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return mBuffer.remaining();
+        }
+    }
+
+    /**
+     * Open tag, children are counted as they are read
+     */
+    private static class Level {
+
+        final String path; // path of the tag, null when unknown
+        int children = 0;
+        boolean include = false; // include read among the children
+
+        Level(String path) {
+            this.path = path;
+        }
+    }
+}
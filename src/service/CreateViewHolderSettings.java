@@ -0,0 +1,176 @@
+package service;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import entity.Element;
+import entity.GenerateOptions;
+import utils.CreateViewHolderConfig;
+
+import java.util.List;
+
+/**
+ * Settings of the project stored in .idea/createViewHolder.xml, the file can be checked in to share them with the team.
+ * Generation reads them once into a {@link Snapshot}, values set by the former versions in PropertiesComponent
+ * are taken over until the settings are saved.
+ */
+@State(name = "CreateViewHolderSettings", storages = @Storage("createViewHolder.xml"))
+public class CreateViewHolderSettings implements PersistentStateComponent<CreateViewHolderSettings.Settings> {
+
+    private final Project mProject;
+    private Settings mSettings = new Settings();
+
+    public CreateViewHolderSettings(Project project) {
+        mProject = project;
+        importProperties();
+    }
+
+    public static CreateViewHolderSettings getInstance(Project project) {
+        return ServiceManager.getService(project, CreateViewHolderSettings.class);
+    }
+
+    @Override
+    public Settings getState() {
+        return mSettings;
+    }
+
+    @Override
+    public void loadState(Settings settings) {
+        mSettings = new Settings();
+        XmlSerializerUtil.copyBean(settings, mSettings);
+    }
+
+    /**
+     * Copy of the settings for the settings page
+     *
+     * @return
+     */
+    public Settings getSettings() {
+        Settings settings = new Settings();
+        XmlSerializerUtil.copyBean(mSettings, settings);
+        return settings;
+    }
+
+    /**
+     * Replace the settings, the next generation uses them
+     *
+     * @param settings
+     */
+    public void setSettings(Settings settings) {
+        loadState(settings);
+    }
+
+    /**
+     * Values for single generation, later changes of the settings do not affect it
+     *
+     * @return
+     */
+    public Snapshot getSnapshot() {
+        String prefix = mSettings.fieldNamePrefix;
+        if (prefix == null) {
+            prefix = CodeStyleSettingsManager.getSettings(mProject).FIELD_NAME_PREFIX;
+        }
+        return new Snapshot(mSettings, prefix);
+    }
+
+    /**
+     * Directory with user templates, relative to the project directory or absolute
+     *
+     * @return directory or null when the bundled templates are used
+     */
+    public String getTemplateDir() {
+        return mSettings.templateDir;
+    }
+
+    private void importProperties() {
+        PropertiesComponent properties = PropertiesComponent.getInstance();
+        if (properties.isValueSet(CreateViewHolderConfig.PREFIX)) {
+            mSettings.fieldNamePrefix = properties.getValue(CreateViewHolderConfig.PREFIX);
+        }
+        mSettings.holderSuffix = properties.getValue(CreateViewHolderConfig.VIEWHOLDER_CLASS_NAME, mSettings.holderSuffix);
+        mSettings.modelSuffix = properties.getValue(CreateViewHolderConfig.VIEWMODEL_CLASS_NAME, mSettings.modelSuffix);
+    }
+
+    /**
+     * Persisted state, public fields are serialized
+     */
+    public static class Settings {
+
+        public int fieldNameType = 1; // 1 aa_bb_cc; 2 aaBbCc 3 mAaBbCc
+        public String fieldNamePrefix = null; // prefix of mAaBbCc style, null for the field prefix of code style
+        public String holderSuffix = CreateViewHolderConfig.VIEWHOLDER_CLASS_NAME;
+        public String modelSuffix = CreateViewHolderConfig.VIEWMODEL_CLASS_NAME;
+        public String viewHolderInterface = CreateViewHolderConfig.VIEWHOLDER_INTERFACE_FULL_NAME; // empty for none
+        public String templateDir = null; // null for the bundled templates
+        public boolean lazy = false; // views resolved on first access by default
+        public boolean autoImplements = false;
+        public boolean incremental = true;
+        public boolean bindByPath = false;
+        public boolean recyclerView = false;
+    }
+
+    /**
+     * Immutable settings of single generation
+     */
+    public static final class Snapshot {
+
+        public final int fieldNameType;
+        public final String fieldNamePrefix;
+        public final String holderSuffix;
+        public final String modelSuffix;
+        public final String viewHolderInterface;
+        public final boolean lazy;
+        private final boolean mAutoImplements;
+        private final boolean mIncremental;
+        private final boolean mBindByPath;
+        private final boolean mRecyclerView;
+
+        private Snapshot(Settings settings, String fieldNamePrefix) {
+            this.fieldNameType = settings.fieldNameType;
+            this.fieldNamePrefix = fieldNamePrefix;
+            this.holderSuffix = settings.holderSuffix;
+            this.modelSuffix = settings.modelSuffix;
+            this.viewHolderInterface = settings.viewHolderInterface;
+            this.lazy = settings.lazy;
+            mAutoImplements = settings.autoImplements;
+            mIncremental = settings.incremental;
+            mBindByPath = settings.bindByPath;
+            mRecyclerView = settings.recyclerView;
+        }
+
+        /**
+         * Options of generation preset from the settings, the dialog may change them
+         *
+         * @return new options
+         */
+        public GenerateOptions createOptions() {
+            GenerateOptions options = new GenerateOptions();
+            options.autoImplements = mAutoImplements;
+            options.incremental = mIncremental;
+            options.bindByPath = mBindByPath;
+            options.recyclerView = mRecyclerView;
+            options.holderSuffix = holderSuffix;
+            options.modelSuffix = modelSuffix;
+            options.viewHolderInterface = viewHolderInterface;
+            return options;
+        }
+
+        /**
+         * Preset naming style and lazy binding of elements
+         *
+         * @param elements
+         */
+        public void applyDefaults(List<Element> elements) {
+            for (Element element : elements) {
+                element.setFieldNameType(fieldNameType);
+                element.setFieldNamePrefix(fieldNamePrefix);
+                element.lazy = lazy && element.canBeLazy();
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package service;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing and counters of generation phases: wall time, elements, PSI events and bytes allocated by the measuring thread.
+ * Last samples of every phase are kept in a ring buffer, percentiles are computed from them on request.
+ */
+public class GenerationTelemetry {
+
+    private static final int SAMPLES = 128; // per phase
+
+    private final AtomicLong mPsiEvents = new AtomicLong();
+    private final Map<String, Samples> mPhases = new LinkedHashMap<String, Samples>();
+    private final List<Runnable> mListeners = new CopyOnWriteArrayList<Runnable>();
+    private final ThreadMXBean mThreads = ManagementFactory.getThreadMXBean();
+
+    public GenerationTelemetry(Project project) {
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+
+            @Override
+            public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+
+            @Override
+            public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+
+            @Override
+            public void childMoved(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+
+            @Override
+            public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+
+            @Override
+            public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+                mPsiEvents.incrementAndGet();
+            }
+        }, project);
+    }
+
+    public static GenerationTelemetry getInstance(Project project) {
+        return ServiceManager.getService(project, GenerationTelemetry.class);
+    }
+
+    /**
+     * Start measuring a phase on the current thread
+     *
+     * @param phase
+     * @return measurement to stop when the phase is done
+     */
+    public Measurement start(String phase) {
+        return new Measurement(phase, System.nanoTime(), mPsiEvents.get(), getAllocatedBytes());
+    }
+
+    /**
+     * Statistics of all phases in the order they were first recorded
+     *
+     * @return
+     */
+    public List<PhaseStats> getStats() {
+        List<Samples> phases;
+        synchronized (mPhases) {
+            phases = new ArrayList<Samples>(mPhases.values());
+        }
+        List<PhaseStats> stats = new ArrayList<PhaseStats>(phases.size());
+        for (Samples samples : phases) {
+            stats.add(samples.getStats());
+        }
+        return stats;
+    }
+
+    public void reset() {
+        synchronized (mPhases) {
+            mPhases.clear();
+        }
+        fireChanged();
+    }
+
+    /**
+     * Called on the recording thread after every recorded sample
+     *
+     * @param listener
+     */
+    public void addListener(Runnable listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Statistics as JSON array, one object per phase
+     *
+     * @return
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("[");
+        List<PhaseStats> stats = getStats();
+        for (int i = 0; i < stats.size(); i++) {
+            PhaseStats phase = stats.get(i);
+            sb.append(i > 0 ? ",\n  " : "\n  ");
+            sb.append("{\"phase\": \"").append(phase.phase.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            sb.append(", \"count\": ").append(phase.count);
+            sb.append(", \"samples\": ").append(phase.samples);
+            sb.append(", \"p50Ms\": ").append(format(phase.p50Ms));
+            sb.append(", \"p90Ms\": ").append(format(phase.p90Ms));
+            sb.append(", \"p99Ms\": ").append(format(phase.p99Ms));
+            sb.append(", \"maxMs\": ").append(format(phase.maxMs));
+            sb.append(", \"meanElements\": ").append(format(phase.meanElements));
+            sb.append(", \"meanPsiEvents\": ").append(format(phase.meanPsiEvents));
+            sb.append(", \"p50AllocatedBytes\": ").append(phase.p50AllocatedBytes);
+            sb.append(", \"p90AllocatedBytes\": ").append(phase.p90AllocatedBytes).append('}');
+        }
+        return sb.append(stats.isEmpty() ? "]\n" : "\n]\n").toString();
+    }
+
+    /**
+     * Statistics as CSV with header, one line per phase
+     *
+     * @return
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("phase,count,samples,p50Ms,p90Ms,p99Ms,maxMs,meanElements,meanPsiEvents,p50AllocatedBytes,p90AllocatedBytes\n");
+        for (PhaseStats phase : getStats()) {
+            sb.append('"').append(phase.phase.replace("\"", "\"\"")).append('"');
+            sb.append(',').append(phase.count);
+            sb.append(',').append(phase.samples);
+            sb.append(',').append(format(phase.p50Ms));
+            sb.append(',').append(format(phase.p90Ms));
+            sb.append(',').append(format(phase.p99Ms));
+            sb.append(',').append(format(phase.maxMs));
+            sb.append(',').append(format(phase.meanElements));
+            sb.append(',').append(format(phase.meanPsiEvents));
+            sb.append(',').append(phase.p50AllocatedBytes);
+            sb.append(',').append(phase.p90AllocatedBytes).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void record(String phase, long wallNanos, int elements, long psiEvents, long allocatedBytes) {
+        Samples samples;
+        synchronized (mPhases) {
+            samples = mPhases.get(phase);
+            if (samples == null) {
+                samples = new Samples(phase);
+                mPhases.put(phase, samples);
+            }
+        }
+        samples.add(wallNanos, elements, psiEvents, allocatedBytes);
+        fireChanged();
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : mListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far
+     *
+     * @return bytes or -1 when the JVM does not count them
+     */
+    private long getAllocatedBytes() {
+        if (mThreads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) mThreads;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.3f", value);
+    }
+
+    /**
+     * Running phase, must be stopped on the thread that started it
+     */
+    public class Measurement {
+
+        private final String mPhase;
+        private final long mStartNanos;
+        private final long mStartPsiEvents;
+        private final long mStartAllocatedBytes;
+
+        private Measurement(String phase, long startNanos, long startPsiEvents, long startAllocatedBytes) {
+            mPhase = phase;
+            mStartNanos = startNanos;
+            mStartPsiEvents = startPsiEvents;
+            mStartAllocatedBytes = startAllocatedBytes;
+        }
+
+        /**
+         * Record the phase
+         *
+         * @param elements number of elements the phase worked on
+         */
+        public void stop(int elements) {
+            long wallNanos = System.nanoTime() - mStartNanos;
+            long allocatedBytes = mStartAllocatedBytes >= 0 ? getAllocatedBytes() - mStartAllocatedBytes : -1;
+            record(mPhase, wallNanos, elements, mPsiEvents.get() - mStartPsiEvents, allocatedBytes);
+        }
+    }
+
+    /**
+     * Statistics of single phase over the samples in the ring buffer
+     */
+    public static class PhaseStats {
+
+        public String phase;
+        public long count; // recorded since reset, the samples are the last of them
+        public int samples;
+        public double p50Ms;
+        public double p90Ms;
+        public double p99Ms;
+        public double maxMs;
+        public double meanElements;
+        public double meanPsiEvents;
+        public long p50AllocatedBytes; // -1 when unknown
+        public long p90AllocatedBytes;
+    }
+
+    /**
+     * Ring buffer of the last samples of single phase
+     */
+    private static class Samples {
+
+        final String phase;
+        final long[] wallNanos = new long[SAMPLES];
+        final int[] elements = new int[SAMPLES];
+        final long[] psiEvents = new long[SAMPLES];
+        final long[] allocatedBytes = new long[SAMPLES];
+        long count = 0;
+
+        Samples(String phase) {
+            this.phase = phase;
+        }
+
+        synchronized void add(long wallNanos, int elements, long psiEvents, long allocatedBytes) {
+            int index = (int) (count % SAMPLES);
+            this.wallNanos[index] = wallNanos;
+            this.elements[index] = elements;
+            this.psiEvents[index] = psiEvents;
+            this.allocatedBytes[index] = allocatedBytes;
+            count++;
+        }
+
+        synchronized PhaseStats getStats() {
+            int size = (int) Math.min(count, SAMPLES);
+            PhaseStats stats = new PhaseStats();
+            stats.phase = phase;
+            stats.count = count;
+            stats.samples = size;
+
+            long[] wall = Arrays.copyOf(wallNanos, size);
+            Arrays.sort(wall);
+            stats.p50Ms = percentile(wall, 0.5) / 1e6;
+            stats.p90Ms = percentile(wall, 0.9) / 1e6;
+            stats.p99Ms = percentile(wall, 0.99) / 1e6;
+            stats.maxMs = size > 0 ? wall[size - 1] / 1e6 : 0;
+
+            long elementSum = 0;
+            long psiEventSum = 0;
+            for (int i = 0; i < size; i++) {
+                elementSum += elements[i];
+                psiEventSum += psiEvents[i];
+            }
+            stats.meanElements = size > 0 ? (double) elementSum / size : 0;
+            stats.meanPsiEvents = size > 0 ? (double) psiEventSum / size : 0;
+
+            long[] allocated = Arrays.copyOf(allocatedBytes, size);
+            Arrays.sort(allocated);
+            boolean known = size > 0 && allocated[0] >= 0;
+            stats.p50AllocatedBytes = known ? percentile(allocated, 0.5) : -1;
+            stats.p90AllocatedBytes = known ? percentile(allocated, 0.9) : -1;
+            return stats;
+        }
+
+        /**
+         * Nearest rank percentile of sorted values
+         */
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package service;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.FileBasedIndex;
+import entity.Element;
+import entity.LayoutTag;
+import index.LayoutIdIndex;
+import layout.LayoutExpander;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds IDs that would produce the same field twice: different IDs collapsed to one field name by the naming style
+ * (user_name and userName), IDs repeated in one inflated hierarchy (toolbar of an included layout) and IDs named
+ * like members the templates always declare (view, viewModel, getView()). Layouts declaring every ID are taken
+ * from the layout index for the report, scans read the layouts in parallel and skip the unchanged ones.
+ */
+public class IdCollisionAnalyzer {
+
+    // members declared by the templates regardless of the layout
+    private static final Set<String> RESERVED_FIELDS = new HashSet<String>(Arrays.asList("view", "viewModel", "viewHolder", "itemView"));
+    private static final Set<String> RESERVED_STUB_FIELDS = Collections.singleton("view");
+    private static final Set<String> RESERVED_METHODS = Collections.singleton("getView()");
+
+    private final Project mProject;
+    private final ConcurrentMap<VirtualFile, LayoutIds> mLayouts = new ConcurrentHashMap<VirtualFile, LayoutIds>();
+    private volatile Map<String, Set<String>> mIdLayouts = Collections.emptyMap(); // ID -> names of layouts declaring it
+
+    public IdCollisionAnalyzer(Project project) {
+        mProject = project;
+    }
+
+    public static IdCollisionAnalyzer getInstance(Project project) {
+        return ServiceManager.getService(project, IdCollisionAnalyzer.class);
+    }
+
+    /**
+     * Update ID -> layouts map from all layouts of the project, must be called in background without read action
+     *
+     * @param indicator
+     */
+    public void scan(ProgressIndicator indicator) {
+        List<VirtualFile> files = DumbService.getInstance(mProject).runReadActionInSmartMode(new Computable<List<VirtualFile>>() {
+            @Override
+            public List<VirtualFile> compute() {
+                FileBasedIndex index = FileBasedIndex.getInstance();
+                GlobalSearchScope scope = GlobalSearchScope.projectScope(mProject);
+                Set<VirtualFile> files = new HashSet<VirtualFile>();
+                for (String name : index.getAllKeys(LayoutIdIndex.NAME, mProject)) {
+                    files.addAll(index.getContainingFiles(LayoutIdIndex.NAME, name, scope));
+                }
+                return new ArrayList<VirtualFile>(files);
+            }
+        });
+        mLayouts.keySet().retainAll(new HashSet<VirtualFile>(files)); // removed layouts
+        scan(files, indicator);
+    }
+
+    /**
+     * Update ID -> layouts map from the given layouts only, must be called in background without read action
+     *
+     * @param files     layout files
+     * @param indicator
+     */
+    public void scan(Collection<VirtualFile> files, ProgressIndicator indicator) {
+        final GlobalSearchScope scope = GlobalSearchScope.projectScope(mProject);
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(new ArrayList<VirtualFile>(files), indicator, false, new Processor<VirtualFile>() {
+            @Override
+            public boolean process(final VirtualFile file) {
+                ApplicationManager.getApplication().runReadAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        update(file, scope);
+                    }
+                });
+                return true;
+            }
+        });
+
+        Map<String, Set<String>> idLayouts = new HashMap<String, Set<String>>();
+        for (Map.Entry<VirtualFile, LayoutIds> entry : mLayouts.entrySet()) {
+            if (!entry.getKey().isValid()) {
+                mLayouts.remove(entry.getKey()); // deleted since the last scan
+                continue;
+            }
+            LayoutIds layout = entry.getValue();
+            for (String id : layout.ids) {
+                Set<String> names = idLayouts.get(id);
+                if (names == null) {
+                    names = new TreeSet<String>();
+                    idLayouts.put(id, names);
+                }
+                names.add(layout.name);
+            }
+        }
+        mIdLayouts = idLayouts;
+    }
+
+    /**
+     * Layouts of the project declaring the ID, known after the first scan
+     *
+     * @param element
+     * @return layout file names
+     */
+    public Set<String> getLayouts(Element element) {
+        Set<String> layouts = mIdLayouts.get((element.isAndroidNS() ? "@android:id/" : "@id/") + element.id);
+        return layouts != null ? layouts : Collections.<String>emptySet();
+    }
+
+    /**
+     * Used elements that would generate the same field or getter, or members the template always declares
+     *
+     * @param elements
+     * @return description of every collision, empty when there is none
+     */
+    public List<String> findCollisions(List<Element> elements) {
+        List<String> collisions = new ArrayList<String>();
+        findCollisions(elements, RESERVED_FIELDS, collisions);
+        return collisions;
+    }
+
+    private void findCollisions(List<Element> elements, Set<String> reserved, List<String> collisions) {
+        Map<String, List<Element>> fields = new LinkedHashMap<String, List<Element>>();
+        Map<String, List<Element>> getters = new LinkedHashMap<String, List<Element>>();
+        for (Element element : elements) {
+            if (!element.used) {
+                continue;
+            }
+            put(fields, element.getFieldName(), element);
+            if (element.stubLayout != null) {
+                put(fields, element.getFieldName() + "Holder", element); // holder of the inflated stub
+                if (element.getStubElements() != null) {
+                    findCollisions(element.getStubElements(), RESERVED_STUB_FIELDS, collisions);
+                }
+            } else if (element.lazy && element.canBeLazy()) {
+                put(getters, element.getGetterName() + "()", element);
+            }
+        }
+        addCollisions(fields, reserved, collisions);
+        addCollisions(getters, RESERVED_METHODS, collisions);
+    }
+
+    private void addCollisions(Map<String, List<Element>> members, Set<String> reserved, List<String> collisions) {
+        for (Map.Entry<String, List<Element>> entry : members.entrySet()) {
+            List<Element> same = entry.getValue();
+            Set<String> ids = new TreeSet<String>();
+            Set<String> sources = new TreeSet<String>();
+            for (Element element : same) {
+                ids.add(element.getFullID());
+                if (element.source != null) {
+                    sources.add(element.source);
+                }
+            }
+
+            StringBuilder sb = new StringBuilder(entry.getKey()).append(": ").append(join(ids));
+            if (reserved.contains(entry.getKey())) {
+                collisions.add(sb.append(ids.size() > 1 ? " are" : " is").append(" reserved by the generated holder").toString());
+                continue;
+            }
+            if (same.size() < 2) {
+                continue;
+            }
+            if (ids.size() > 1) {
+                sb.append(" have the same name");
+            } else {
+                sb.append(" is repeated in ").append(join(sources));
+            }
+            Set<String> layouts = getLayouts(same.get(0));
+            if (ids.size() == 1 && layouts.size() > 1) {
+                sb.append(", declared by ").append(join(layouts));
+            }
+            collisions.add(sb.toString());
+        }
+    }
+
+    private static void put(Map<String, List<Element>> members, String name, Element element) {
+        List<Element> same = members.get(name);
+        if (same == null) {
+            same = new ArrayList<Element>();
+            members.put(name, same);
+        }
+        same.add(element);
+    }
+
+    private void update(VirtualFile file, GlobalSearchScope scope) {
+        if (!file.isValid() || !scope.contains(file)) {
+            return;
+        }
+        LayoutIds cached = mLayouts.get(file);
+        if (cached != null && cached.modificationStamp == file.getModificationStamp()) {
+            return; // unchanged since the last scan
+        }
+
+        Set<String> ids = new HashSet<String>();
+        String name = FileUtil.getNameWithoutExtension(file.getName());
+        for (List<LayoutTag> tags : FileBasedIndex.getInstance().getValues(LayoutIdIndex.NAME, name,
+                GlobalSearchScope.fileScope(mProject, file))) {
+            for (LayoutTag tag : tags) {
+                if (tag.id != null) {
+                    ids.add(LayoutExpander.getIdKey(tag.id));
+                }
+            }
+        }
+        mLayouts.put(file, new LayoutIds(file.getName(), file.getModificationStamp(), ids));
+    }
+
+    private static String join(Collection<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * IDs declared by single layout file
+     */
+    private static class LayoutIds {
+
+        final String name;
+        final long modificationStamp;
+        final Set<String> ids;
+
+        LayoutIds(String name, long modificationStamp, Set<String> ids) {
+            this.name = name;
+            this.modificationStamp = modificationStamp;
+            this.ids = ids;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package service;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.search.FilenameIndex;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per module index of layout variants, e.g. layout, layout-land and layout-sw600dp of every flavor.
+ * Variants are looked up in the module first and in its dependencies only when the module has none,
+ * the index is dropped when files are added, removed or moved, or module roots change.
+ */
+public class LayoutVariantIndex {
+
+    private static final Key<CachedValue<ConcurrentMap<String, List<VirtualFile>>>> VARIANTS_KEY = Key.create("CreateViewHolder.LayoutVariants");
+
+    private final Project mProject;
+
+    public LayoutVariantIndex(Project project) {
+        mProject = project;
+    }
+
+    public static LayoutVariantIndex getInstance(Project project) {
+        return ServiceManager.getService(project, LayoutVariantIndex.class);
+    }
+
+    /**
+     * Layout visible from the element, the variant without qualifiers has priority
+     *
+     * @param element
+     * @param fileName layout file name with extension
+     * @return layout or null when the element is not in a module or there is no such layout
+     */
+    public PsiFile findLayout(PsiElement element, String fileName) {
+        List<PsiFile> variants = getVariants(element, fileName);
+        return variants.isEmpty() ? null : variants.get(0);
+    }
+
+    /**
+     * All variants of layout visible from the element, the variant without qualifiers first
+     *
+     * @param element
+     * @param fileName layout file name with extension
+     * @return variants, empty when the element is not in a module or there is no such layout
+     */
+    public List<PsiFile> getVariants(PsiElement element, String fileName) {
+        final Module module = ModuleUtil.findModuleForPsiElement(element);
+        if (module == null) {
+            return Collections.emptyList(); // searching the whole project is slow and finds layouts of other modules
+        }
+
+        ConcurrentMap<String, List<VirtualFile>> variants = CachedValuesManager.getManager(mProject).getCachedValue(module, VARIANTS_KEY,
+                new CachedValueProvider<ConcurrentMap<String, List<VirtualFile>>>() {
+                    @Override
+                    public Result<ConcurrentMap<String, List<VirtualFile>>> compute() {
+                        return Result.<ConcurrentMap<String, List<VirtualFile>>>create(new ConcurrentHashMap<String, List<VirtualFile>>(),
+                                VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS, ProjectRootManager.getInstance(mProject));
+                    }
+                }, false);
+        List<VirtualFile> files = variants.get(fileName);
+        if (files == null) {
+            files = findVariants(module, fileName);
+            variants.put(fileName, files);
+        }
+
+        List<PsiFile> layouts = new ArrayList<PsiFile>(files.size());
+        PsiManager psiManager = PsiManager.getInstance(mProject);
+        for (VirtualFile file : files) {
+            PsiFile layout = file.isValid() ? psiManager.findFile(file) : null;
+            if (layout != null) {
+                layouts.add(layout);
+            }
+        }
+        return layouts;
+    }
+
+    private List<VirtualFile> findVariants(Module module, String fileName) {
+        List<VirtualFile> files = getLayoutFiles(FilenameIndex.getVirtualFilesByName(mProject, fileName, module.getModuleScope(false)));
+        if (files.isEmpty()) {
+            // layout of library, variants of other libraries with the same name are overridden
+            files = getLayoutFiles(FilenameIndex.getVirtualFilesByName(mProject, fileName,
+                    module.getModuleWithDependenciesAndLibrariesScope(false)));
+            if (!files.isEmpty()) {
+                files = getSameOrigin(files);
+            }
+        }
+        return files;
+    }
+
+    private static List<VirtualFile> getLayoutFiles(Collection<VirtualFile> files) {
+        List<VirtualFile> layouts = new ArrayList<VirtualFile>();
+        for (VirtualFile file : files) {
+            VirtualFile parent = file.getParent();
+            if (parent != null && (parent.getName().equals("layout") || parent.getName().startsWith("layout-"))) {
+                layouts.add(file);
+            }
+        }
+
+        Collections.sort(layouts, new Comparator<VirtualFile>() {
+            @Override
+            public int compare(VirtualFile o1, VirtualFile o2) {
+                String dir1 = o1.getParent().getName();
+                String dir2 = o2.getParent().getName();
+                int result = dir1.compareTo(dir2); // "layout" is before any "layout-*"
+                return result != 0 ? result : o1.getPath().compareTo(o2.getPath());
+            }
+        });
+        return layouts;
+    }
+
+    private List<VirtualFile> getSameOrigin(List<VirtualFile> files) {
+        VirtualFile first = files.get(0);
+        Module module = ModuleUtil.findModuleForFile(first, mProject);
+        VirtualFile res = first.getParent().getParent();
+
+        List<VirtualFile> result = new ArrayList<VirtualFile>();
+        for (VirtualFile file : files) {
+            if (module != null ? module.equals(ModuleUtil.findModuleForFile(file, mProject))
+                    : res != null && res.equals(file.getParent().getParent())) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+}
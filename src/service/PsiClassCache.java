@@ -0,0 +1,93 @@
+package service;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.psi.util.PsiModificationTracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Project level cache of resolved and missing classes, dropped when java structure of the project or its roots change
+ */
+public class PsiClassCache {
+
+    private final Project mProject;
+    private final ConcurrentMap<String, Object> mClasses = new ConcurrentHashMap<String, Object>();
+    private volatile long mModificationCount = -1;
+
+    public PsiClassCache(Project project) {
+        mProject = project;
+    }
+
+    public static PsiClassCache getInstance(Project project) {
+        return ServiceManager.getService(project, PsiClassCache.class);
+    }
+
+    /**
+     * Find class by qualified name, nested classes are separated by dot
+     *
+     * @param qualifiedName
+     * @return class or null when not found
+     */
+    public PsiClass findClass(String qualifiedName) {
+        Object cached = getCached(qualifiedName);
+        if (cached == Boolean.FALSE) {
+            return null; // already known as missing
+        }
+        if (cached instanceof PsiClass) {
+            return (PsiClass) cached;
+        }
+
+        PsiClass psiClass = JavaPsiFacade.getInstance(mProject).findClass(qualifiedName, GlobalSearchScope.allScope(mProject));
+        mClasses.put(qualifiedName, psiClass != null ? psiClass : Boolean.FALSE);
+        return psiClass;
+    }
+
+    /**
+     * Find class by short name, only unambiguous names are resolved
+     *
+     * @param shortName
+     * @return class or null when not found or there are more classes with the name
+     */
+    public PsiClass findClassByShortName(String shortName) {
+        String key = "#" + shortName;
+        Object cached = getCached(key);
+        if (cached == Boolean.FALSE) {
+            return null; // already known as missing
+        }
+        if (cached instanceof PsiClass) {
+            return (PsiClass) cached;
+        }
+
+        // Bind*Model classes usually live in the project, libraries are searched only when it has none
+        PsiClass[] classes = PsiShortNamesCache.getInstance(mProject).getClassesByName(shortName, GlobalSearchScope.projectScope(mProject));
+        if (classes.length == 0) {
+            classes = PsiShortNamesCache.getInstance(mProject).getClassesByName(shortName, GlobalSearchScope.allScope(mProject));
+        }
+        PsiClass psiClass = classes.length == 1 ? classes[0] : null;
+        mClasses.put(key, psiClass != null ? psiClass : Boolean.FALSE);
+        return psiClass;
+    }
+
+    private Object getCached(String key) {
+        // misses of both lookups stay valid until classes are added to the sources or libraries change
+        long modificationCount = PsiModificationTracker.SERVICE.getInstance(mProject).getJavaStructureModificationCount()
+                + ProjectRootManager.getInstance(mProject).getModificationCount();
+        if (modificationCount != mModificationCount) {
+            mClasses.clear();
+            mModificationCount = modificationCount;
+        }
+
+        Object cached = mClasses.get(key);
+        if (cached instanceof PsiClass && !((PsiClass) cached).isValid()) {
+            return null; // resolve again
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,95 @@
+package service;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import template.Template;
+import template.ViewHolderSource;
+import utils.Utils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled templates of ViewHolder. User template from the configured directory is compiled again only when
+ * the file changes, the bundled template is used when there is none or it is broken.
+ */
+public class TemplateCache {
+
+    private static final String NOTIFICATION_GROUP = "CreateViewHolder";
+
+    private final Project mProject;
+    private final Map<String, CachedTemplate> mTemplates = new HashMap<String, CachedTemplate>();
+
+    public TemplateCache(Project project) {
+        mProject = project;
+    }
+
+    public static TemplateCache getInstance(Project project) {
+        return ServiceManager.getService(project, TemplateCache.class);
+    }
+
+    /**
+     * Template of ViewHolder, must be called inside read action
+     *
+     * @param name one of ViewHolderSource.*_TEMPLATE names
+     * @return
+     */
+    public synchronized Template getTemplate(String name) {
+        VirtualFile file = findUserTemplate(name);
+        if (file == null) {
+            mTemplates.remove(name);
+            return ViewHolderSource.getDefaultTemplate(name);
+        }
+        // unsaved changes of opened template count too
+        Document document = FileDocumentManager.getInstance().getDocument(file);
+        if (document == null) {
+            return ViewHolderSource.getDefaultTemplate(name); // binary or too large file
+        }
+        CachedTemplate cached = mTemplates.get(name);
+        if (cached != null && file.getPath().equals(cached.path) && document.getModificationStamp() == cached.modificationStamp) {
+            return cached.template;
+        }
+
+        cached = new CachedTemplate();
+        cached.path = file.getPath();
+        cached.modificationStamp = document.getModificationStamp();
+        try {
+            cached.template = Template.compile(document.getText());
+        } catch (RuntimeException e) {
+            cached.template = ViewHolderSource.getDefaultTemplate(name); // until the file changes again
+            // reported once per broken version, the bus is safe to call from write commands and worker threads
+            Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "CreateViewHolder",
+                    "Invalid template " + file.getPath() + ", using default: " + e.getMessage(), NotificationType.ERROR), mProject);
+        }
+        mTemplates.put(name, cached);
+        return cached.template;
+    }
+
+    private VirtualFile findUserTemplate(String name) {
+        String dir = CreateViewHolderSettings.getInstance(mProject).getTemplateDir();
+        if (Utils.isEmptyString(dir)) {
+            return null;
+        }
+
+        File file = new File(dir, name);
+        if (!file.isAbsolute() && mProject.getBasePath() != null) {
+            file = new File(mProject.getBasePath(), file.getPath());
+        }
+        return LocalFileSystem.getInstance().findFileByPath(FileUtil.toSystemIndependentName(file.getPath()));
+    }
+
+    private static class CachedTemplate {
+        String path;
+        long modificationStamp;
+        Template template;
+    }
+}
@@ -0,0 +1,212 @@
+package template;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled template of generated code.
+ * <p>
+ * Syntax: {{name}} inserts value, {{#name}}...{{/name}} renders the block once for true or non empty value and
+ * once per item for collection, {{^name}}...{{/name}} renders the block for false, empty or missing value,
+ * {{! text}} is a comment. Lines containing only block tags or comments are removed from the output.
+ */
+public class Template {
+
+    private final List<Node> mNodes;
+    private final int mSizeHint;
+
+    private Template(List<Node> nodes, int sizeHint) {
+        mNodes = nodes;
+        mSizeHint = sizeHint;
+    }
+
+    /**
+     * Parse template text
+     *
+     * @param text
+     * @return
+     * @throws IllegalArgumentException When the template is malformed
+     */
+    public static Template compile(String text) {
+        Deque<SectionNode> sections = new ArrayDeque<SectionNode>();
+        List<Node> root = new ArrayList<Node>();
+        List<Node> current = root;
+
+        int position = 0;
+        while (position < text.length()) {
+            int open = text.indexOf("{{", position);
+            if (open < 0) {
+                current.add(new TextNode(text.substring(position)));
+                break;
+            }
+            int close = text.indexOf("}}", open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed tag at " + open);
+            }
+
+            String tag = text.substring(open + 2, close).trim();
+            int end = close + 2;
+            int start = open;
+            char type = tag.isEmpty() ? ' ' : tag.charAt(0);
+            if (type == '#' || type == '^' || type == '/' || type == '!') {
+                // standalone block tag, drop its whole line
+                int lineStart = text.lastIndexOf('\n', open - 1) + 1;
+                int lineEnd = text.indexOf('\n', end);
+                lineEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+                if (text.substring(lineStart, open).trim().isEmpty() && text.substring(end, lineEnd).trim().isEmpty()) {
+                    start = Math.max(lineStart, position);
+                    end = lineEnd;
+                }
+            }
+            if (start > position) {
+                current.add(new TextNode(text.substring(position, start)));
+            }
+            position = end;
+
+            switch (type) {
+                case '!':
+                    break;
+                case '#':
+                case '^':
+                    SectionNode section = new SectionNode(tag.substring(1).trim(), type == '^');
+                    current.add(section);
+                    sections.push(section);
+                    current = section.children;
+                    break;
+                case '/':
+                    String name = tag.substring(1).trim();
+                    if (sections.isEmpty() || !sections.peek().name.equals(name)) {
+                        throw new IllegalArgumentException("Unexpected end of section " + name);
+                    }
+                    sections.pop();
+                    current = sections.isEmpty() ? root : sections.peek().children;
+                    break;
+                default:
+                    current.add(new VariableNode(tag));
+                    break;
+            }
+        }
+
+        if (!sections.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed section " + sections.peek().name);
+        }
+        return new Template(root, text.length() * 2);
+    }
+
+    /**
+     * Render template with model, nested maps are visible inside sections of their collections
+     *
+     * @param model
+     * @return
+     */
+    public String render(Map<String, ?> model) {
+        StringBuilder out = new StringBuilder(mSizeHint);
+        Deque<Map<String, ?>> context = new ArrayDeque<Map<String, ?>>();
+        context.push(model);
+        render(mNodes, context, out);
+        return out.toString();
+    }
+
+    private static void render(List<Node> nodes, Deque<Map<String, ?>> context, StringBuilder out) {
+        for (Node node : nodes) {
+            node.render(context, out);
+        }
+    }
+
+    private static Object lookup(Deque<Map<String, ?>> context, String name) {
+        Iterator<Map<String, ?>> iterator = context.iterator(); // from the innermost scope
+        while (iterator.hasNext()) {
+            Map<String, ?> scope = iterator.next();
+            if (scope.containsKey(name)) {
+                return scope.get(name);
+            }
+        }
+        return null;
+    }
+
+    private interface Node {
+        void render(Deque<Map<String, ?>> context, StringBuilder out);
+    }
+
+    private static class TextNode implements Node {
+        private final String text;
+
+        TextNode(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(Deque<Map<String, ?>> context, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static class VariableNode implements Node {
+        private final String name;
+
+        VariableNode(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void render(Deque<Map<String, ?>> context, StringBuilder out) {
+            Object value = lookup(context, name);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+    }
+
+    private static class SectionNode implements Node {
+        private final String name;
+        private final boolean inverted;
+        private final List<Node> children = new ArrayList<Node>();
+
+        SectionNode(String name, boolean inverted) {
+            this.name = name;
+            this.inverted = inverted;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void render(Deque<Map<String, ?>> context, StringBuilder out) {
+            Object value = lookup(context, name);
+            boolean empty = value == null
+                    || Boolean.FALSE.equals(value)
+                    || (value instanceof Collection && ((Collection) value).isEmpty())
+                    || (value instanceof String && ((String) value).isEmpty());
+            if (inverted) {
+                if (empty) {
+                    Template.render(children, context, out);
+                }
+                return;
+            }
+            if (empty) {
+                return;
+            }
+
+            if (value instanceof Collection) {
+                for (Object item : (Collection) value) {
+                    if (item instanceof Map) {
+                        context.push((Map<String, ?>) item);
+                        Template.render(children, context, out);
+                        context.pop();
+                    } else {
+                        Template.render(children, context, out);
+                    }
+                }
+            } else if (value instanceof Map) {
+                context.push((Map<String, ?>) value);
+                Template.render(children, context, out);
+                context.pop();
+            } else {
+                Template.render(children, context, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package template;
+
+import entity.Element;
+import entity.GenerateOptions;
+import utils.CreateViewHolderConfig;
+import utils.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds source of ViewHolder from layout elements. Independent of the IDE, template is compiled once
+ * and rendered for every generated holder.
+ */
+public class ViewHolderSource {
+
+    public static final String JAVA_TEMPLATE = "ViewHolder.java.ft";
+    public static final String KOTLIN_TEMPLATE = "ViewHolder.kt.ft";
+    public static final String RECYCLER_JAVA_TEMPLATE = "RecyclerViewHolder.java.ft";
+    public static final String RECYCLER_KOTLIN_TEMPLATE = "RecyclerViewHolder.kt.ft";
+
+    private static final ConcurrentMap<String, Template> sDefaultTemplates = new ConcurrentHashMap<String, Template>();
+
+    private final Template mTemplate;
+    private final Map<String, Object> mModel = new HashMap<String, Object>();
+
+    public ViewHolderSource(Template template, String holderClassName, String modelClassName, String layoutFileName) {
+        mTemplate = template;
+        mModel.put("holderClassName", holderClassName);
+        mModel.put("modelClassName", modelClassName);
+        mModel.put("layoutFileName", layoutFileName);
+        mModel.put("interfaces", new ArrayList<Map<String, Object>>());
+        mModel.put("elements", new ArrayList<Map<String, Object>>());
+    }
+
+    /**
+     * Model of generated holder shared by the plugin and the command line, both render the same source
+     *
+     * @param template
+     * @param holderClassName
+     * @param modelClassName
+     * @param layoutFileName
+     * @param elements
+     * @param options
+     * @param classes        classes available to the generated code
+     * @return
+     */
+    public static ViewHolderSource create(Template template, String holderClassName, String modelClassName, String layoutFileName,
+                                          List<Element> elements, GenerateOptions options, ClassLookup classes) {
+        boolean onClick = false;
+        boolean onLongClick = false;
+        for (Element element : elements) {
+            onClick |= element.isClickable();
+            onLongClick |= element.isLongClickable();
+        }
+
+        // implements, only known classes, unresolved interface would break the compilation
+        ViewHolderSource source = new ViewHolderSource(template, holderClassName, modelClassName, layoutFileName);
+        boolean viewHolder = options.viewHolderInterface != null && !options.viewHolderInterface.isEmpty()
+                && classes.isKnown(options.viewHolderInterface);
+        if (viewHolder) {
+            source.addInterface(options.viewHolderInterface);
+        }
+        source.put("viewHolderInterface", viewHolder);
+        int extension = layoutFileName.lastIndexOf('.');
+        source.put("layoutName", extension != -1 ? layoutFileName.substring(0, extension) : layoutFileName);
+        onClick = options.autoImplements && onClick && classes.isKnown(CreateViewHolderConfig.ONCLICK_INTERFACE_FULL_NAME);
+        onLongClick = options.autoImplements && onLongClick && classes.isKnown(CreateViewHolderConfig.ONLONGCLICK_INTERFACE_FULL_NAME);
+        if (options.recyclerView) {
+            // listeners are implemented once by the shared Listener, not by every holder
+            source.put("recyclerViewClass", classes.isKnown(CreateViewHolderConfig.RECYCLERVIEW_ANDROIDX_FULL_NAME)
+                    ? CreateViewHolderConfig.RECYCLERVIEW_ANDROIDX_FULL_NAME : CreateViewHolderConfig.RECYCLERVIEW_FULL_NAME);
+        } else {
+            if (onClick) {
+                source.addInterface(CreateViewHolderConfig.ONCLICK_INTERFACE_FULL_NAME);
+            }
+            if (onLongClick) {
+                source.addInterface(CreateViewHolderConfig.ONLONGCLICK_INTERFACE_FULL_NAME);
+            }
+        }
+        source.setElements(elements, options.autoImplements, onClick, onLongClick, options.bindByPath);
+        return source;
+    }
+
+    /**
+     * Get ViewHolder name from layout file name (item_feed.xml -> ItemFeed)
+     *
+     * @param layoutFileName
+     * @return
+     */
+    public static String getViewHolderName(String layoutFileName) {
+        String[] names = layoutFileName.split("_");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            sb.append(StringUtils.firstToUpperCase(names[i]));
+        }
+        return sb.toString().replaceAll(".xml", "");
+    }
+
+    /**
+     * Template bundled with the plugin
+     *
+     * @param name one of *_TEMPLATE names
+     * @return
+     */
+    public static Template getDefaultTemplate(String name) {
+        Template template = sDefaultTemplates.get(name);
+        if (template == null) {
+            template = Template.compile(loadResource("/templates/" + name));
+            Template previous = sDefaultTemplates.putIfAbsent(name, template);
+            if (previous != null) {
+                template = previous;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Add implemented interface, in the order of calls
+     *
+     * @param qualifiedName
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public ViewHolderSource addInterface(String qualifiedName) {
+        List<Map<String, Object>> interfaces = (List<Map<String, Object>>) mModel.get("interfaces");
+        Map<String, Object> item = new HashMap<String, Object>();
+        item.put("first", interfaces.isEmpty());
+        item.put("separator", interfaces.isEmpty() ? " implements " : ", ");
+        item.put("name", qualifiedName);
+        interfaces.add(item);
+        return this;
+    }
+
+    /**
+     * Add used elements
+     *
+     * @param elements
+     * @param autoImplements generate listeners, onClick, onLongClick and submit
+     * @param onClick        holder implements OnClickListener
+     * @param onLongClick    holder implements OnLongClickListener
+     * @param bindByPath     resolve views by child indexes where they are known
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public ViewHolderSource setElements(List<Element> elements, boolean autoImplements, boolean onClick, boolean onLongClick, boolean bindByPath) {
+        List<Map<String, Object>> items = (List<Map<String, Object>>) mModel.get("elements");
+        List<Map<String, Object>> clicks = new ArrayList<Map<String, Object>>();
+        List<Map<String, Object>> longClicks = new ArrayList<Map<String, Object>>();
+        List<Map<String, Object>> submits = new ArrayList<Map<String, Object>>();
+        boolean pathBinding = false;
+
+        for (Element element : elements) {
+            if (autoImplements && onClick && element.isClickable()) {
+                clicks.add(idItem(element));
+            }
+            if (autoImplements && onLongClick && element.isLongClickable()) {
+                longClicks.add(idItem(element));
+            }
+            if (autoImplements && element.isEditText() && element.hint != null) {
+                submits.add(submitItem(element));
+            }
+            if (!element.used) {
+                continue;
+            }
+
+            Map<String, Object> item = elementItem(element, bindByPath);
+            item.put("setOnClickListener", autoImplements && onClick && element.isClickable());
+            item.put("setOnLongClickListener", autoImplements && onLongClick && element.isLongClickable());
+            pathBinding |= item.get("path") != null;
+
+            if (element.getStubElements() != null) {
+                // views of ViewStub are bound by a nested holder once the stub is inflated
+                List<Map<String, Object>> stubItems = new ArrayList<Map<String, Object>>();
+                for (Element stubElement : element.getStubElements()) {
+                    Map<String, Object> stubItem = elementItem(stubElement, bindByPath);
+                    pathBinding |= stubItem.get("path") != null;
+                    stubItems.add(stubItem);
+                }
+                Map<String, Object> stub = new HashMap<String, Object>();
+                stub.put("stubClassName", element.getStubClassName());
+                stub.put("inflateName", "inflate" + element.getGetterName().substring("get".length()));
+                stub.put("stubElements", stubItems);
+                item.put("stub", stub);
+            }
+            items.add(item);
+        }
+
+        mModel.put("onClick", clicks);
+        mModel.put("hasOnClick", !clicks.isEmpty());
+        mModel.put("onLongClick", longClicks);
+        mModel.put("hasOnLongClick", !longClicks.isEmpty());
+        mModel.put("submit", submits);
+        mModel.put("hasSubmit", !submits.isEmpty());
+        mModel.put("hasPathBinding", pathBinding);
+        return this;
+    }
+
+    /**
+     * Set additional value visible to the template
+     *
+     * @param name
+     * @param value
+     * @return
+     */
+    public ViewHolderSource put(String name, Object value) {
+        mModel.put(name, value);
+        return this;
+    }
+
+    public Object get(String name) {
+        return mModel.get(name);
+    }
+
+    public String render() {
+        return mTemplate.render(mModel);
+    }
+
+    /**
+     * Child path of element as arguments of generated findViewByPath
+     *
+     * @param path
+     * @return "0, 2" for "0/2"
+     */
+    public static String getPathArguments(String path) {
+        return path.replace("/", ", ");
+    }
+
+    /**
+     * Values of element common to holder and stub holder, every key is set so nested sections
+     * never see values of the enclosing element
+     */
+    private static Map<String, Object> elementItem(Element element, boolean bindByPath) {
+        Map<String, Object> item = new HashMap<String, Object>();
+        item.put("type", element.name);
+        item.put("fieldName", element.getFieldName());
+        item.put("fullId", element.getFullID());
+        item.put("modelType", "Bind" + element.name + "Model");
+        item.put("lazy", element.lazy && element.canBeLazy());
+        item.put("optional", element.optional);
+        item.put("getterName", element.getGetterName());
+        item.put("path", bindByPath && element.path != null && !element.path.isEmpty() ? getPathArguments(element.path) : null);
+        item.put("setOnClickListener", false);
+        item.put("setOnLongClickListener", false);
+        item.put("stub", null);
+        return item;
+    }
+
+    private static Map<String, Object> idItem(Element element) {
+        Map<String, Object> item = new HashMap<String, Object>();
+        item.put("fullId", element.getFullID());
+        return item;
+    }
+
+    private static Map<String, Object> submitItem(Element element) {
+        // EditText string name
+        String idName = element.id;
+        int index = idName.lastIndexOf("_");
+        String name = index == -1 ? idName : idName.substring(index + 1);
+        if (name.equals(idName)) {
+            name += "String";
+        }
+        String emptyTint = "\"" + name + "不能为空" + "\"";
+        String hint = element.hint;
+        if (hint.startsWith("@string")) {
+            emptyTint = "R.string." + hint.replace("@string/", "");
+        } else if (!hint.isEmpty()) {
+            emptyTint = "\"" + hint + "\"";
+        }
+
+        Map<String, Object> item = new HashMap<String, Object>();
+        item.put("name", name);
+        item.put("idName", idName);
+        item.put("emptyTint", emptyTint);
+        item.put("lazy", element.used && element.lazy && element.canBeLazy());
+        item.put("optional", element.optional);
+        item.put("getterName", element.getGetterName());
+        return item;
+    }
+
+    /**
+     * Classes available to the generated holder, resolved by the IDE or given on the command line
+     */
+    public interface ClassLookup {
+
+        boolean isKnown(String qualifiedName);
+    }
+
+    private static String loadResource(String path) {
+        InputStream in = ViewHolderSource.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new IllegalStateException("Missing template " + path);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not read template " + path, e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -22,4 +22,7 @@ public final class CreateViewHolderConfig {
     public static final String ONLONGCLICK_INTERFACE_NAME = "OnLongClickListener";
     public static final String ONLONGCLICK_INTERFACE_FULL_NAME = "android.view.View.OnLongClickListener";
 
+    public static final String RECYCLERVIEW_FULL_NAME = "android.support.v7.widget.RecyclerView";
+    public static final String RECYCLERVIEW_ANDROIDX_FULL_NAME = "androidx.recyclerview.widget.RecyclerView";
+
 }
@@ -0,0 +1,202 @@
+package utils;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiNamedElement;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import entity.Element;
+import entity.GenerateOptions;
+import service.GenerationTelemetry;
+import service.PsiClassCache;
+import template.ViewHolderSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Kotlin output of CreateViewHolder. Kotlin plugin is not a dependency, so the holder is rendered as text,
+ * inserted through the document and reformatted. Existing holder is always replaced.
+ */
+public class KotlinCreateViewHolder extends WriteCommandAction.Simple {
+
+    private static final String[] VIEW_PACKAGES = {"android.widget.", "android.view.", "android.webkit."};
+
+    protected PsiFile mFile;
+    protected Project mProject;
+    protected PsiElement mClass;
+    protected ArrayList<Element> mElements;
+    protected String mLayoutFileName;
+    protected String mViewHolderName;
+    protected GenerateOptions mOptions;
+    protected String mResult;
+
+    public KotlinCreateViewHolder(PsiFile file, PsiElement clazz, String command, ArrayList<Element> elements, String layoutFileName, String viewHolderName, GenerateOptions options) {
+        super(file.getProject(), command, file);
+        mFile = file;
+        mProject = file.getProject();
+        mClass = clazz;
+        mElements = elements;
+        mLayoutFileName = layoutFileName;
+        mViewHolderName = viewHolderName;
+        mOptions = options;
+    }
+
+    @Override
+    public void run() throws Throwable {
+
+        generate();
+
+        Utils.showInfoNotification(mProject, mResult);
+    }
+
+    /**
+     * Generate and reformat the ViewHolder, must be called inside a write command
+     */
+    public void generate() {
+        GenerationTelemetry telemetry = GenerationTelemetry.getInstance(mProject);
+        GenerationTelemetry.Measurement generate = telemetry.start("generate (Kotlin)");
+        GenerationTelemetry.Measurement render = telemetry.start("render source (Kotlin)");
+        String holderClassName = mViewHolderName + mOptions.holderSuffix;
+        String modelClassName = mViewHolderName + mOptions.modelSuffix;
+        String templateName = mOptions.recyclerView ? ViewHolderSource.RECYCLER_KOTLIN_TEMPLATE : ViewHolderSource.KOTLIN_TEMPLATE;
+        ViewHolderSource source = CreateViewHolder.createSource(mProject, templateName, holderClassName, modelClassName,
+                mLayoutFileName, mElements, mOptions);
+        String text = source.render();
+        render.stop(mElements.size());
+
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(mProject);
+        Document document = documentManager.getDocument(mFile);
+        if (document == null || !mClass.isValid()) {
+            throw new IllegalStateException("Can not edit " + mFile.getName());
+        }
+        documentManager.doPostponedOperationsAndUnblockDocument(document);
+
+        // replace existing holder or append before the closing brace of class body
+        GenerationTelemetry.Measurement insert = telemetry.start("insert class (Kotlin)");
+        int start;
+        PsiElement body = Utils.findChildByType(mClass, "CLASS_BODY");
+        PsiElement existing = body != null ? findNestedClass(body, holderClassName) : null;
+        if (existing != null) {
+            TextRange range = existing.getTextRange();
+            start = range.getStartOffset();
+            document.replaceString(start, range.getEndOffset(), text);
+        } else if (body != null) {
+            start = body.getLastChild().getTextRange().getStartOffset();
+            document.insertString(start, text);
+        } else {
+            start = mClass.getTextRange().getEndOffset();
+            text = " {\n" + text + "}";
+            document.insertString(start, text);
+        }
+        documentManager.commitDocument(document);
+        insert.stop(mElements.size());
+
+        GenerationTelemetry.Measurement reformat = telemetry.start("reformat (Kotlin)");
+        CodeStyleManager.getInstance(mProject).reformatText(mFile, start, start + text.length());
+        addImports(document, source);
+        reformat.stop(mElements.size());
+        generate.stop(mElements.size());
+        mResult = mViewHolderName + " create success";
+    }
+
+    /**
+     * Qualified name of view type, tags without package are looked up in the packages the layout inflater uses
+     *
+     * @param classCache
+     * @param element
+     * @return
+     */
+    private static String getViewClassName(PsiClassCache classCache, Element element) {
+        if (element.nameFull != null) {
+            return element.nameFull;
+        }
+        for (String packageName : VIEW_PACKAGES) {
+            if (classCache.findClass(packageName + element.name) != null) {
+                return packageName + element.name;
+            }
+        }
+        return VIEW_PACKAGES[0] + element.name; // SDK not resolved
+    }
+
+    private static PsiElement findNestedClass(PsiElement body, String name) {
+        for (PsiElement child = body.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (Utils.isElementType(child, "CLASS") && child instanceof PsiNamedElement
+                    && name.equals(((PsiNamedElement) child).getName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Import android classes, view types and Bind*Model classes used by the template, Kotlin references are not
+     * shortened by the platform
+     *
+     * @param document
+     * @param source
+     */
+    private void addImports(Document document, ViewHolderSource source) {
+        Set<String> imports = new LinkedHashSet<String>();
+        if (!mOptions.recyclerView) {
+            imports.add("android.content.Context");
+        }
+        imports.add("android.view.LayoutInflater");
+        imports.add("android.view.View");
+        if (mOptions.recyclerView || Boolean.TRUE.equals(source.get("hasPathBinding"))) {
+            imports.add("android.view.ViewGroup");
+        }
+        if (Boolean.TRUE.equals(source.get("hasSubmit"))) {
+            imports.add("android.widget.Toast");
+        }
+        PsiClassCache classCache = PsiClassCache.getInstance(mProject);
+        for (Element element : mElements) {
+            if (!element.used) {
+                continue;
+            }
+            imports.add(getViewClassName(classCache, element));
+            if (element.getStubElements() != null) {
+                for (Element stubElement : element.getStubElements()) {
+                    imports.add(getViewClassName(classCache, stubElement));
+                }
+            }
+            PsiClass model = classCache.findClassByShortName("Bind" + element.name + "Model");
+            if (model != null && model.getQualifiedName() != null) {
+                imports.add(model.getQualifiedName());
+            }
+        }
+
+        PsiElement importList = Utils.findChildByType(mFile, "IMPORT_LIST");
+        if (importList == null) {
+            return; // script or broken file
+        }
+        String existing = importList.getText();
+        Set<String> imported = new HashSet<String>();
+        for (String line : existing.split("\n")) {
+            imported.add(line.trim());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String fqn : imports) {
+            String packageName = fqn.substring(0, fqn.lastIndexOf('.'));
+            if (!imported.contains("import " + fqn) && !imported.contains("import " + packageName + ".*")) {
+                sb.append("\nimport ").append(fqn);
+            }
+        }
+        if (sb.length() == 0) {
+            return;
+        }
+
+        if (existing.isEmpty()) {
+            sb.insert(0, "\n"); // blank line after the package directive
+        }
+        document.insertString(importList.getTextRange().getEndOffset(), sb.toString());
+        PsiDocumentManager.getInstance(mProject).commitDocument(document);
+    }
+}
@@ -0,0 +1,48 @@
+package utils;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import entity.LayoutTag;
+import layout.LayoutExpander;
+
+import java.util.List;
+
+/**
+ * Expands include tags of layout. Tags of every layout are parsed once per modification stamp,
+ * every layout is expanded once per graph and reused by all layouts that include it.
+ */
+public class LayoutIncludeGraph extends LayoutExpander<PsiFile> {
+
+    private static final Logger LOG = Logger.getInstance(LayoutIncludeGraph.class);
+    private static final Key<CachedValue<List<LayoutTag>>> TAGS_KEY = Key.create("CreateViewHolder.LayoutTags");
+
+    @Override
+    protected List<LayoutTag> getTags(final PsiFile layout) {
+        return CachedValuesManager.getCachedValue(layout, TAGS_KEY, new CachedValueProvider<List<LayoutTag>>() {
+            @Override
+            public Result<List<LayoutTag>> compute() {
+                return Result.create(Utils.getLayoutTags(layout), layout);
+            }
+        });
+    }
+
+    @Override
+    protected PsiFile findLayout(PsiFile from, String name) {
+        return Utils.findLayoutResource(from, from.getProject(), name);
+    }
+
+    @Override
+    protected void onInvalidTag(LayoutTag tag, IllegalArgumentException e) {
+        LOG.info(tag.source + ": " + e.getMessage() + " " + tag.id);
+    }
+
+    @Override
+    protected void checkCanceled() {
+        ProgressManager.checkCanceled();
+    }
+}
@@ -1,35 +1,41 @@
 package utils;
 
-import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.module.Module;
-import com.intellij.openapi.module.ModuleUtil;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.projectRoots.ProjectJdkTable;
 import com.intellij.openapi.projectRoots.Sdk;
 import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.ui.popup.Balloon;
 import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.wm.StatusBar;
 import com.intellij.openapi.wm.WindowManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiIdentifier;
 import com.intellij.psi.XmlRecursiveElementVisitor;
-import com.intellij.psi.codeStyle.CodeStyleSettings;
-import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
-import com.intellij.psi.search.EverythingGlobalScope;
-import com.intellij.psi.search.FilenameIndex;
-import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.xml.XmlAttribute;
 import com.intellij.psi.xml.XmlTag;
 import com.intellij.ui.awt.RelativePoint;
 import entity.Element;
+import entity.LayoutTag;
+import index.LayoutIdIndex;
+import layout.LayoutReader;
+import service.LayoutVariantIndex;
+import template.ViewHolderSource;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Utils {
 
+    private static final Pattern sHolderCommentPattern = Pattern.compile("//\\s*(\\w+) create by (\\S+\\.xml)\\s*");
+
     /**
      * Is using Android SDK?
      */
@@ -52,8 +58,17 @@ public class Utils {
      * @return
      */
     public static PsiFile getLayoutFileFromCaret(Editor editor, PsiFile file) {
-        int offset = editor.getCaretModel().getOffset();
+        return getLayoutFileAtOffset(file, editor.getCaretModel().getOffset());
+    }
 
+    /**
+     * Try to find layout XML file in current source on given offset, does not touch the editor
+     *
+     * @param file
+     * @param offset
+     * @return
+     */
+    public static PsiFile getLayoutFileAtOffset(PsiFile file, int offset) {
         PsiElement candidateA = file.findElementAt(offset);
         PsiElement candidateB = file.findElementAt(offset - 1);
 
@@ -75,11 +90,18 @@ public class Utils {
         if (element == null) {
             return null; // nothing to be used
         }
-        if (!(element instanceof PsiIdentifier)) {
+        if (!(element instanceof PsiIdentifier) && !(isKotlinFile(element.getContainingFile())
+                && element.getFirstChild() == null && StringUtil.isJavaIdentifier(element.getText()))) {
             return null; // nothing to be used
         }
 
-        PsiElement layout = element.getParent().getFirstChild();
+        // Java: R.layout.name reference, Kotlin: name reference inside R.layout.name dot qualified expression
+        PsiElement parent = element.getParent();
+        PsiElement layout = parent.getFirstChild();
+        if (layout != null && !"R.layout".equals(layout.getText()) && parent.getParent() != null
+                && isKotlinFile(element.getContainingFile())) {
+            layout = parent.getParent().getFirstChild();
+        }
         if (layout == null) {
             return null; // no file to process
         }
@@ -94,24 +116,7 @@ public class Utils {
 
     private static PsiFile resolveLayoutResourceFile(PsiElement element, Project project, String name) {
         // restricting the search to the current module - searching the whole project could return wrong layouts
-        Module module = ModuleUtil.findModuleForPsiElement(element);
-        PsiFile[] files = null;
-        if (module != null) {
-            GlobalSearchScope moduleScope = module.getModuleWithDependenciesAndLibrariesScope(false);
-            files = FilenameIndex.getFilesByName(project, name, moduleScope);
-        }
-        if (files == null || files.length <= 0) {
-            // fallback to search through the whole project
-            // useful when the project is not properly configured - when the resource directory is not configured
-            files = FilenameIndex.getFilesByName(project, name, new EverythingGlobalScope(project));
-            if (files.length <= 0) {
-                return null; //no matching files
-            }
-        }
-
-        // TODO - we have a problem here - we still can have multiple layouts (some coming from a dependency)
-        // we need to resolve R class properly and find the proper layout for the R class
-        return files[0];
+        return LayoutVariantIndex.getInstance(project).findLayout(element, name);
     }
 
     /**
@@ -146,58 +151,168 @@ public class Utils {
      * @return
      */
     public static ArrayList<Element> getIDsFromLayout(final PsiFile file, final ArrayList<Element> elements) {
+        // includes are expanded over cached per-file tags, IDs of all variants are merged
+        List<PsiFile> variants = new ArrayList<PsiFile>();
+        variants.add(file);
+        for (PsiFile variant : LayoutVariantIndex.getInstance(file.getProject()).getVariants(file, file.getName())) {
+            if (!variant.equals(file)) {
+                variants.add(variant);
+            }
+        }
+        return new LayoutIncludeGraph().getElements(variants, elements);
+    }
+
+    /**
+     * Tags of single layout without expanded includes, read from the layout index or the PSI when the index can not answer
+     *
+     * @param file
+     * @return
+     */
+    public static List<LayoutTag> getLayoutTags(PsiFile file) {
+        List<LayoutTag> tags = LayoutIdIndex.getLayoutTags(file);
+        if (tags == null) {
+            tags = collectLayoutTags(file);
+        }
+        return tags;
+    }
+
+    /**
+     * Walk the layout and obtain attributes of all tags with ID, includes and the root view
+     *
+     * @param file
+     * @return
+     */
+    public static List<LayoutTag> collectLayoutTags(final PsiFile file) {
+        final List<LayoutTag> tags = new ArrayList<LayoutTag>();
+        final String source = file.getName();
         file.accept(new XmlRecursiveElementVisitor() {
 
             @Override
             public void visitElement(final PsiElement element) {
+                ProgressManager.checkCanceled();
                 super.visitElement(element);
 
                 if (element instanceof XmlTag) {
                     XmlTag tag = (XmlTag) element;
-
-//                    if (tag.getName().equalsIgnoreCase("include")) {
-//                        XmlAttribute layout = tag.getAttribute("layout", null);
-//
-//                        if (layout != null) {
-//                            Project project = file.getProject();
-//                            PsiFile include = findLayoutResource(file, project, getLayoutName(layout.getValue()));
-//
-//                            if (include != null) {
-//                                getIDsFromLayout(include, elements);
-//
-//                                return;
-//                            }
-//                        }
-//                    }
+                    boolean root = tag.getParentTag() == null;
 
                     // get element ID
                     XmlAttribute id = tag.getAttribute("android:id", null);
-                    if (id == null) {
+                    String value = id != null ? id.getValue() : null;
+
+                    String include = null;
+                    if (tag.getName().equalsIgnoreCase("include")) {
+                        include = getLayoutName(tag.getAttributeValue("layout"));
+                        if (include == null) {
+                            return; // missing layout attribute
+                        }
+                    } else if (value == null && (!root || tag.getName().equalsIgnoreCase("merge"))) {
                         return; // missing android:id attribute
                     }
-                    String value = id.getValue();
-                    if (value == null) {
-                        return; // empty value
-                    }
 
                     // check if there is defined custom class
-                    String name = tag.getName();
                     XmlAttribute clazz = tag.getAttribute("class", null);
-                    if (clazz != null) {
-                        name = clazz.getValue();
-                    }
-
-                    try {
-                        Element e = new Element(name, value, tag);
-                        elements.add(e);
-                    } catch (IllegalArgumentException e) {
-                        // TODO log
+                    String className = clazz != null ? clazz.getValue() : null;
+
+                    LayoutTag layoutTag = new LayoutTag(tag.getName(), className, value,
+                            "true".equals(tag.getAttributeValue("android:clickable")),
+                            "true".equals(tag.getAttributeValue("android:longClickable")),
+                            tag.getAttributeValue("android:hint"));
+                    layoutTag.include = include;
+                    layoutTag.root = root;
+                    layoutTag.source = source;
+                    layoutTag.path = getChildPath(tag);
+                    if (tag.getName().equals("ViewStub")) {
+                        layoutTag.stubLayout = getLayoutName(tag.getAttributeValue("android:layout"));
+                        layoutTag.inflatedId = tag.getAttributeValue("android:inflatedId");
                     }
+                    tags.add(layoutTag);
                 }
             }
         });
 
-        return elements;
+        return tags;
+    }
+
+    /**
+     * Position of the view in inflated hierarchy, child indexes from the root view
+     *
+     * @param tag
+     * @return path like "0/2", "" for the root view, null when children can not be counted from the XML
+     */
+    public static String getChildPath(XmlTag tag) {
+        StringBuilder path = new StringBuilder();
+        XmlTag child = tag;
+        XmlTag parent = tag.getParentTag();
+        while (parent != null) {
+            int index = 0;
+            for (XmlTag sibling : parent.getSubTags()) {
+                if (sibling == child) {
+                    break;
+                }
+                String name = sibling.getName();
+                if (name.equalsIgnoreCase("include")) {
+                    return null; // included merge adds unknown number of children
+                }
+                if (!name.equals("requestFocus") && !name.equals("tag")) {
+                    index++; // view counts as a child, requestFocus and tag do not
+                }
+            }
+            path.insert(0, path.length() > 0 ? index + "/" : String.valueOf(index));
+            child = parent;
+            parent = parent.getParentTag();
+        }
+
+        String rootName = child.getName();
+        if (rootName.equalsIgnoreCase("merge") || rootName.equals("layout")) {
+            return null; // children are attached to a parent unknown here
+        }
+        return path.toString();
+    }
+
+    /**
+     * Is the file Kotlin source? Kotlin plugin is optional, so its PSI is accessed through element types only
+     *
+     * @param file
+     * @return
+     */
+    public static boolean isKotlinFile(PsiFile file) {
+        return file != null && "kotlin".equals(file.getLanguage().getID());
+    }
+
+    /**
+     * Find Kotlin class declaration containing the element
+     *
+     * @param element
+     * @return class or null when the element is outside of any class
+     */
+    public static PsiElement findKotlinClass(PsiElement element) {
+        for (PsiElement parent = element; parent != null && !(parent instanceof PsiFile); parent = parent.getParent()) {
+            if (isElementType(parent, "CLASS")) {
+                return parent;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find direct child by the name of its element type
+     *
+     * @param parent
+     * @param type
+     * @return
+     */
+    public static PsiElement findChildByType(PsiElement parent, String type) {
+        for (PsiElement child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (isElementType(child, type)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isElementType(PsiElement element, String type) {
+        return element.getNode() != null && type.equals(element.getNode().getElementType().toString());
     }
 
     /**
@@ -207,16 +322,35 @@ public class Utils {
      * @return
      */
     public static String getLayoutName(String layout) {
-        if (layout == null || !layout.startsWith("@") || !layout.contains("/")) {
-            return null; // it's not layout identifier
-        }
+        return LayoutReader.getLayoutName(layout);
+    }
 
-        String[] parts = layout.split("/");
-        if (parts.length != 2) {
-            return null; // not enough parts
+    /**
+     * Get layout file name from the "// XViewHolder create by layout.xml" comment of generated holder
+     *
+     * @param holder
+     * @return layout file name or null when the class was not generated
+     */
+    public static String getHolderLayoutFileName(PsiClass holder) {
+        for (PsiElement child = holder.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof PsiComment) {
+                Matcher matcher = sHolderCommentPattern.matcher(child.getText());
+                if (matcher.matches() && matcher.group(1).equals(holder.getName())) {
+                    return matcher.group(2);
+                }
+            }
         }
+        return null;
+    }
 
-        return parts[1];
+    /**
+     * Get ViewHolder name from layout file name (item_feed.xml -> ItemFeed)
+     *
+     * @param layoutFileName
+     * @return
+     */
+    public static String getViewHolderName(String layoutFileName) {
+        return ViewHolderSource.getViewHolderName(layoutFileName);
     }
 
     /**
@@ -256,29 +390,6 @@ public class Utils {
                 .show(RelativePoint.getCenterOf(statusBar.getComponent()), Balloon.Position.atRight);
     }
 
-    /**
-     * Load field name prefix from code style
-     *
-     * @return
-     */
-    public static String getPrefix() {
-        if (PropertiesComponent.getInstance().isValueSet(CreateViewHolderConfig.PREFIX)) {
-            return PropertiesComponent.getInstance().getValue(CreateViewHolderConfig.PREFIX);
-        } else {
-            CodeStyleSettingsManager manager = CodeStyleSettingsManager.getInstance();
-            CodeStyleSettings settings = manager.getCurrentSettings();
-            return settings.FIELD_NAME_PREFIX;
-        }
-    }
-
-    public static String getViewHolderClassName() {
-        return PropertiesComponent.getInstance().getValue(CreateViewHolderConfig.VIEWHOLDER_CLASS_NAME, "ViewHolder");
-    }
-
-    public static String getViewModelClassName() {
-        return PropertiesComponent.getInstance().getValue(CreateViewHolderConfig.VIEWMODEL_CLASS_NAME, "ViewModel");
-    }
-
     /**
      * Easier way to check if string is empty
      *
@@ -0,0 +1,650 @@
+package utils;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+import entity.Element;
+import template.ViewHolderSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Updates existing ViewHolder and its ViewModel to the current layout.
+ * Only members of added or removed IDs are touched, hand written code stays as it is.
+ */
+public class ViewHolderUpdater {
+
+    private static final String FIND_VIEW_BY_PATH = "findViewByPath"; // generated in holders bound by child indexes
+    private static final String LISTENER_CLASS = "Listener"; // click listener shared by RecyclerView holders
+    private static final String LISTENER_FIELD = "listener";
+    private static final String ON_CLICK = "onClick"; // switch by view ID generated in holders implementing the listeners
+    private static final String ON_LONG_CLICK = "onLongClick";
+    // calls on a field emitted by the templates, statements with other calls are hand written
+    private static final Set<String> GENERATED_CALLS = new HashSet<String>(Arrays.asList("setOnClickListener",
+            "setOnLongClickListener", "setOnInflateListener", "onResume", "onPause"));
+
+    private final PsiClass mHolder;
+    private final PsiClass mModel;
+    private final List<Element> mElements;
+    private final boolean isAutoImplements;
+    private final PsiElementFactory mFactory;
+    private final List<PsiElement> mAdded = new ArrayList<PsiElement>();
+    private int mAddedCount = 0;
+    private int mRemovedCount = 0;
+
+    public ViewHolderUpdater(PsiClass holder, String modelClassName, List<Element> elements, boolean autoImplements) {
+        mHolder = holder;
+        mModel = holder.findInnerClassByName(modelClassName, false);
+        mElements = elements;
+        isAutoImplements = autoImplements;
+        mFactory = JavaPsiFacade.getElementFactory(holder.getProject());
+    }
+
+    /**
+     * Apply difference between layout and holder
+     *
+     * @return false when the holder was not generated by this plugin or a ViewStub was added, the holder is not changed
+     * and must be rendered again
+     */
+    public boolean update() {
+        PsiMethod constructor = findViewConstructor(mHolder);
+        if (constructor == null || constructor.getBody() == null) {
+            return false;
+        }
+        PsiCodeBlock body = constructor.getBody();
+        String rootViewName = constructor.getParameterList().getParameters()[0].getName();
+
+        Map<String, PsiField> existing = getBoundFields(mHolder);
+
+        Map<String, Element> desired = new LinkedHashMap<String, Element>();
+        for (Element element : mElements) {
+            if (element.used) {
+                desired.put(element.getFullID(), element);
+            }
+        }
+
+        // removed IDs or IDs with changed view type
+        Map<String, PsiField> removed = new LinkedHashMap<String, PsiField>();
+        for (Map.Entry<String, PsiField> entry : existing.entrySet()) {
+            Element element = desired.get(entry.getKey());
+            PsiField field = entry.getValue();
+            if (element != null && element.name.equals(field.getType().getPresentableText())) {
+                desired.remove(entry.getKey()); // unchanged
+            } else {
+                removed.put(entry.getKey(), field);
+            }
+        }
+
+        // holder and inflate listener of added stub are not generated here, the whole class is rendered instead
+        for (Element element : desired.values()) {
+            if (element.stubLayout != null) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, PsiField> entry : removed.entrySet()) {
+            PsiField field = entry.getValue();
+            if (mModel != null) {
+                PsiField modelField = mModel.findFieldByName(field.getName(), false);
+                if (modelField != null) {
+                    removeLazyGetter(mModel, modelField);
+                    removeField(modelField, getModelBlocks());
+                }
+            }
+            removeStubMembers(field);
+            removeLazyGetter(mHolder, field);
+            removeField(field, body);
+            if (!desired.containsKey(entry.getKey())) {
+                // ID is gone, its empty case would not compile
+                removeCase(ON_CLICK, entry.getKey());
+                removeCase(ON_LONG_CLICK, entry.getKey());
+            }
+            mRemovedCount++;
+        }
+
+        // added IDs
+        PsiStatement viewModelStatement = findViewModelStatement(body);
+        // views of RecyclerView holder are bound before its listener block sets their listeners
+        PsiStatement listenerStatement = findListenerStatement(body);
+        PsiStatement bindAnchor = listenerStatement != null ? listenerStatement : viewModelStatement;
+        boolean bindByPath = mHolder.findMethodsByName(FIND_VIEW_BY_PATH, false).length > 0;
+        for (Element element : desired.values()) {
+            if (mHolder.findFieldByName(element.getFieldName(), false) != null) {
+                continue; // hand written field with the same name
+            }
+
+            String fieldName = element.getFieldName();
+            boolean lazy = element.lazy && element.canBeLazy();
+            String guard = element.optional ? "if (this." + fieldName + " != null) " : "";
+            String bind;
+            String rootName = lazy ? getRootFieldName() : rootViewName;
+            if (bindByPath && element.path != null && !element.path.isEmpty()) {
+                bind = "this." + fieldName + " = (" + element.name + ") " + FIND_VIEW_BY_PATH + "("
+                        + rootName + ", " + element.getFullID() + ", " + ViewHolderSource.getPathArguments(element.path) + ");";
+            } else {
+                bind = "this." + fieldName + " = (" + element.name + ") "
+                        + rootName + ".findViewById(" + element.getFullID() + ");";
+            }
+            List<String> listeners = new ArrayList<String>();
+            String onClickListener = getListenerName("OnClickListener");
+            if (isAutoImplements && element.isClickable() && onClickListener != null) {
+                listeners.add(guard + "this." + fieldName + ".setOnClickListener(" + onClickListener + ");");
+                addCase(ON_CLICK, element.getFullID());
+            }
+            String onLongClickListener = getListenerName("OnLongClickListener");
+            if (isAutoImplements && element.isLongClickable() && onLongClickListener != null) {
+                listeners.add(guard + "this." + fieldName + ".setOnLongClickListener(" + onLongClickListener + ");");
+                addCase(ON_LONG_CLICK, element.getFullID());
+            }
+
+            if (lazy) {
+                // clickable views are never lazy, their listeners are set in the constructor
+                addField(mHolder, "private " + element.name + " " + fieldName + ";");
+                addMethod(mHolder, constructor, "public " + element.name + " " + element.getGetterName() + "() {\n"
+                        + "if (this." + fieldName + " == null) {\n" + bind + "\n}\n"
+                        + "return this." + fieldName + ";\n}");
+            } else {
+                addField(mHolder, "public " + element.name + " " + fieldName + ";");
+                addStatement(body, bindAnchor, bind);
+                // shared listener of RecyclerView holder is set in its null check
+                PsiCodeBlock listenerBlock = findListenerBlock(body);
+                for (String listener : listeners) {
+                    if (listener.endsWith("(" + LISTENER_FIELD + ");") && listenerBlock != null) {
+                        addStatement(listenerBlock, null, listener);
+                    } else {
+                        addStatement(body, viewModelStatement, listener);
+                    }
+                }
+            }
+
+            if (mModel != null) {
+                addModelMembers(element);
+            }
+            mAddedCount++;
+        }
+
+        return true;
+    }
+
+    private void addModelMembers(Element element) {
+        String fieldName = element.getFieldName();
+        String viewModelName = "Bind" + element.name + "Model";
+        PsiCodeBlock resume = getMethodBody(mModel, "resume");
+        PsiCodeBlock pause = getMethodBody(mModel, "pause");
+
+        if (element.lazy && element.canBeLazy()) {
+            addField(mModel, "private " + viewModelName + " " + fieldName + ";");
+            PsiMethod[] constructors = mModel.getConstructors();
+            addMethod(mModel, constructors.length > 0 ? constructors[0] : null, "public " + viewModelName + " " + element.getGetterName() + "() {\n"
+                    + "if (this." + fieldName + " == null) {\n"
+                    + "this." + fieldName + " = new " + viewModelName + "(viewHolder." + element.getGetterName() + "());\n}\n"
+                    + "return this." + fieldName + ";\n}");
+            if (resume != null) {
+                addStatement(resume, null, "if (this." + fieldName + " != null) {\nthis." + fieldName + ".onResume();\n}");
+            }
+            if (pause != null) {
+                addStatement(pause, null, "if (this." + fieldName + " != null) {\nthis." + fieldName + ".onPause();\n}");
+            }
+            return;
+        }
+
+        // view missing in some layout variants has no model
+        String nullCheck = element.optional ? "viewHolder." + fieldName + " == null ? null : " : "";
+        String guard = element.optional ? "if (this." + fieldName + " != null) " : "";
+        addField(mModel, "public " + viewModelName + " " + fieldName + ";");
+        PsiMethod[] constructors = mModel.getConstructors();
+        if (constructors.length > 0 && constructors[0].getBody() != null) {
+            addStatement(constructors[0].getBody(), null, "this." + fieldName + " = " + nullCheck + "new " + viewModelName + "(viewHolder." + fieldName + ");");
+        }
+        if (resume != null) {
+            addStatement(resume, null, guard + "this." + fieldName + ".onResume();");
+        }
+        if (pause != null) {
+            addStatement(pause, null, guard + "this." + fieldName + ".onPause();");
+        }
+    }
+
+    /**
+     * Root view available outside of the constructor, view field of plain holder or itemView of RecyclerView holder
+     */
+    private String getRootFieldName() {
+        return mHolder.findFieldByName("view", false) != null ? "view" : "itemView";
+    }
+
+    public List<PsiElement> getAddedElements() {
+        return mAdded;
+    }
+
+    public int getAddedCount() {
+        return mAddedCount;
+    }
+
+    public int getRemovedCount() {
+        return mRemovedCount;
+    }
+
+    /**
+     * Fields bound by findViewById in the View constructor of generated holder
+     *
+     * @param holder
+     * @return full ID (R.id.x) -> field, null when the holder has no View constructor
+     */
+    public static Map<String, PsiField> getBoundFields(PsiClass holder) {
+        PsiMethod constructor = findViewConstructor(holder);
+        if (constructor == null || constructor.getBody() == null) {
+            return null;
+        }
+
+        Map<String, PsiField> fields = new LinkedHashMap<String, PsiField>();
+        for (PsiStatement statement : constructor.getBody().getStatements()) {
+            putBoundField(holder, getAssignment(statement), fields);
+        }
+        for (PsiMethod method : holder.getMethods()) {
+            putBoundField(holder, getLazyAssignment(method), fields);
+        }
+        return fields;
+    }
+
+    /**
+     * Whether clicks of the holder were generated, by the onClick or onLongClick switch of plain holder or the shared
+     * listener of RecyclerView holder
+     *
+     * @param holder
+     * @return
+     */
+    public static boolean isAutoImplemented(PsiClass holder) {
+        return findSwitch(holder, ON_CLICK) != null || findSwitch(holder, ON_LONG_CLICK) != null
+                || (holder.findInnerClassByName(LISTENER_CLASS, false) != null && holder.findFieldByName(LISTENER_FIELD, false) != null);
+    }
+
+    private static void putBoundField(PsiClass holder, PsiAssignmentExpression assignment, Map<String, PsiField> fields) {
+        if (assignment == null) {
+            return;
+        }
+        PsiExpression id = getBoundId(assignment.getRExpression());
+        PsiField field = getField(holder, assignment.getLExpression());
+        if (id != null && field != null) {
+            fields.put(id.getText(), field);
+        }
+    }
+
+    /**
+     * First assignment of generated lazy getter: if (this.f == null) { this.f = ...; } return this.f;
+     *
+     * @param method
+     * @return assignment or null when the method is not a lazy getter
+     */
+    private static PsiAssignmentExpression getLazyAssignment(PsiMethod method) {
+        if (method.isConstructor() || method.getParameterList().getParametersCount() != 0 || method.getBody() == null) {
+            return null;
+        }
+        PsiStatement[] statements = method.getBody().getStatements();
+        if (statements.length != 2 || !(statements[0] instanceof PsiIfStatement) || !(statements[1] instanceof PsiReturnStatement)) {
+            return null;
+        }
+        PsiStatement branch = ((PsiIfStatement) statements[0]).getThenBranch();
+        if (branch instanceof PsiBlockStatement) {
+            PsiStatement[] inner = ((PsiBlockStatement) branch).getCodeBlock().getStatements();
+            branch = inner.length > 0 ? inner[0] : null;
+        }
+        return branch != null ? getAssignment(branch) : null;
+    }
+
+    /**
+     * Delete holder field, inflate method and nested holder class generated for the ViewStub field
+     *
+     * @param field
+     */
+    private void removeStubMembers(PsiField field) {
+        PsiField holderField = mHolder.findFieldByName(field.getName() + "Holder", false);
+        if (holderField == null) {
+            return;
+        }
+        PsiClass stubClass = PsiUtil.resolveClassInType(holderField.getType());
+        for (PsiMethod method : mHolder.getMethods()) {
+            // public XHolder inflateX() { ... this.x.inflate(); ... }
+            if (method.getName().startsWith("inflate") && method.getParameterList().getParametersCount() == 0
+                    && holderField.getType().equals(method.getReturnType())) {
+                method.delete();
+            }
+        }
+        holderField.delete();
+        if (stubClass != null && mHolder.getManager().areElementsEquivalent(stubClass.getContainingClass(), mHolder)) {
+            stubClass.delete();
+        }
+    }
+
+    private static void removeLazyGetter(PsiClass psiClass, PsiField field) {
+        for (PsiMethod method : psiClass.getMethods()) {
+            PsiAssignmentExpression assignment = getLazyAssignment(method);
+            if (assignment != null && field.equals(getField(psiClass, assignment.getLExpression()))) {
+                method.delete();
+            }
+        }
+    }
+
+    private static PsiMethod findViewConstructor(PsiClass holder) {
+        for (PsiMethod constructor : holder.getConstructors()) {
+            PsiParameter[] parameters = constructor.getParameterList().getParameters();
+            // (View view) or (View view, Listener listener) of RecyclerView holder
+            if (parameters.length > 0 && parameters.length <= 2 && "View".equals(parameters[0].getType().getPresentableText())) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
+    private PsiStatement findViewModelStatement(PsiCodeBlock body) {
+        for (PsiStatement statement : body.getStatements()) {
+            PsiAssignmentExpression assignment = getAssignment(statement);
+            if (assignment != null && assignment.getRExpression() instanceof PsiNewExpression) {
+                return statement; // this.viewModel = new XViewModel(this);
+            }
+        }
+        return null;
+    }
+
+    private List<PsiCodeBlock> getModelBlocks() {
+        List<PsiCodeBlock> blocks = new ArrayList<PsiCodeBlock>();
+        for (PsiMethod constructor : mModel.getConstructors()) {
+            if (constructor.getBody() != null) {
+                blocks.add(constructor.getBody());
+            }
+        }
+        PsiCodeBlock resume = getMethodBody(mModel, "resume");
+        if (resume != null) {
+            blocks.add(resume);
+        }
+        PsiCodeBlock pause = getMethodBody(mModel, "pause");
+        if (pause != null) {
+            blocks.add(pause);
+        }
+        return blocks;
+    }
+
+    /**
+     * Listener of generated click wiring
+     *
+     * @param interfaceName OnClickListener or OnLongClickListener
+     * @return this when the holder implements the interface, listener for the shared Listener of RecyclerView holder,
+     * null when clicks are not handled
+     */
+    private String getListenerName(String interfaceName) {
+        if (isImplementing(interfaceName)) {
+            return "this";
+        }
+        PsiClass listener = mHolder.findInnerClassByName(LISTENER_CLASS, false);
+        if (listener != null && mHolder.findFieldByName(LISTENER_FIELD, false) != null) {
+            PsiReferenceList implementsList = listener.getImplementsList();
+            if (implementsList != null && implementsList.getText().contains(interfaceName)) {
+                return LISTENER_FIELD;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Statement this.listener = listener; in the constructor of RecyclerView holder
+     */
+    private static PsiStatement findListenerStatement(PsiCodeBlock body) {
+        for (PsiStatement statement : body.getStatements()) {
+            PsiAssignmentExpression assignment = getAssignment(statement);
+            if (assignment != null && ("this." + LISTENER_FIELD + "=" + LISTENER_FIELD)
+                    .equals(assignment.getText().replaceAll("\\s", ""))) {
+                return statement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Block of if (listener != null) { ... } in the constructor of RecyclerView holder
+     */
+    private static PsiCodeBlock findListenerBlock(PsiCodeBlock body) {
+        for (PsiStatement statement : body.getStatements()) {
+            if (statement instanceof PsiIfStatement) {
+                PsiIfStatement ifStatement = (PsiIfStatement) statement;
+                PsiExpression condition = ifStatement.getCondition();
+                if (condition != null && (LISTENER_FIELD + "!=null").equals(condition.getText().replaceAll("\\s", ""))
+                        && ifStatement.getThenBranch() instanceof PsiBlockStatement) {
+                    return ((PsiBlockStatement) ifStatement.getThenBranch()).getCodeBlock();
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isImplementing(String interfaceName) {
+        PsiReferenceList implementsList = mHolder.getImplementsList();
+        return implementsList != null && implementsList.getText().contains(interfaceName);
+    }
+
+    private void addField(PsiClass psiClass, String text) {
+        PsiField field = mFactory.createFieldFromText(text, psiClass);
+        PsiField[] fields = psiClass.getFields();
+        PsiElement added;
+        if (fields.length > 0) {
+            added = psiClass.addAfter(field, fields[fields.length - 1]);
+        } else {
+            added = psiClass.add(field);
+        }
+        mAdded.add(added);
+    }
+
+    private void addMethod(PsiClass psiClass, PsiMethod anchor, String text) {
+        PsiMethod method = mFactory.createMethodFromText(text, psiClass);
+        PsiElement added;
+        if (anchor != null && anchor.isValid()) {
+            added = psiClass.addAfter(method, anchor);
+        } else {
+            added = psiClass.add(method);
+        }
+        mAdded.add(added);
+    }
+
+    private void addStatement(PsiCodeBlock body, PsiStatement anchor, String text) {
+        PsiStatement statement = mFactory.createStatementFromText(text, body);
+        PsiElement added;
+        if (anchor != null && anchor.isValid()) {
+            added = body.addBefore(statement, anchor);
+        } else {
+            added = body.add(statement);
+        }
+        mAdded.add(added);
+    }
+
+    /**
+     * Delete field and statements of generated code blocks using it
+     */
+    private static void removeField(PsiField field, List<PsiCodeBlock> blocks) {
+        for (PsiCodeBlock block : blocks) {
+            removeStatements(field, block);
+        }
+        field.delete();
+    }
+
+    private static void removeField(PsiField field, PsiCodeBlock block) {
+        removeStatements(field, block);
+        field.delete();
+    }
+
+    /**
+     * Delete statements the templates emit for the field, hand written statements using it stay
+     */
+    private static void removeStatements(PsiField field, PsiCodeBlock block) {
+        PsiCodeBlock listenerBlock = findListenerBlock(block);
+        if (listenerBlock != null) {
+            removeStatements(field, listenerBlock);
+        }
+        for (PsiStatement statement : block.getStatements()) {
+            if (isGeneratedStatement(statement, field)) {
+                statement.delete();
+            }
+        }
+    }
+
+    /**
+     * Binding, listener, model or lifecycle statement of the field, optionally in its null check:
+     * this.f = (T) view.findViewById(id), this.f = new BindTModel(viewHolder.f), this.f.setOnClickListener(this),
+     * if (this.f != null) this.f.onResume() etc.
+     */
+    private static boolean isGeneratedStatement(PsiStatement statement, PsiField field) {
+        if (statement instanceof PsiIfStatement) {
+            PsiIfStatement ifStatement = (PsiIfStatement) statement;
+            if (ifStatement.getElseBranch() != null || !isNullCheck(ifStatement.getCondition(), field)) {
+                return false;
+            }
+            PsiStatement branch = ifStatement.getThenBranch();
+            if (branch instanceof PsiBlockStatement) {
+                PsiStatement[] inner = ((PsiBlockStatement) branch).getCodeBlock().getStatements();
+                branch = inner.length == 1 ? inner[0] : null;
+            }
+            return branch != null && isGeneratedStatement(branch, field);
+        }
+
+        PsiAssignmentExpression assignment = getAssignment(statement);
+        if (assignment != null) {
+            PsiExpression value = assignment.getRExpression();
+            if (value instanceof PsiConditionalExpression) {
+                value = ((PsiConditionalExpression) value).getElseExpression(); // model of optional view
+            }
+            return isReferenceTo(assignment.getLExpression(), field)
+                    && (value instanceof PsiNewExpression || getBoundId(value) != null);
+        }
+
+        if (statement instanceof PsiExpressionStatement && ((PsiExpressionStatement) statement).getExpression() instanceof PsiMethodCallExpression) {
+            PsiReferenceExpression method = ((PsiMethodCallExpression) ((PsiExpressionStatement) statement).getExpression()).getMethodExpression();
+            return GENERATED_CALLS.contains(method.getReferenceName()) && isReferenceTo(method.getQualifierExpression(), field);
+        }
+        return false;
+    }
+
+    private static boolean isNullCheck(PsiExpression condition, PsiField field) {
+        if (!(condition instanceof PsiBinaryExpression) || ((PsiBinaryExpression) condition).getOperationTokenType() != JavaTokenType.NE) {
+            return false;
+        }
+        PsiBinaryExpression binary = (PsiBinaryExpression) condition;
+        return isReferenceTo(binary.getLOperand(), field) && binary.getROperand() != null && "null".equals(binary.getROperand().getText());
+    }
+
+    private static boolean isReferenceTo(PsiExpression expression, PsiField field) {
+        return expression instanceof PsiReferenceExpression && ((PsiReferenceExpression) expression).isReferenceTo(field);
+    }
+
+    /**
+     * Add empty case of the ID to the switch of generated onClick or onLongClick
+     *
+     * @param methodName
+     * @param fullId
+     */
+    private void addCase(String methodName, String fullId) {
+        PsiSwitchStatement switchStatement = findSwitch(mHolder, methodName);
+        if (switchStatement == null || switchStatement.getBody() == null || findCase(switchStatement.getBody(), fullId) != null) {
+            return;
+        }
+        addStatement(switchStatement.getBody(), null, "case " + fullId + ":");
+        addStatement(switchStatement.getBody(), null, "break;");
+    }
+
+    /**
+     * Remove case of the ID from the switch of generated onClick or onLongClick, only when it is still empty
+     *
+     * @param methodName
+     * @param fullId
+     */
+    private void removeCase(String methodName, String fullId) {
+        PsiSwitchStatement switchStatement = findSwitch(mHolder, methodName);
+        PsiSwitchLabelStatement label = switchStatement != null && switchStatement.getBody() != null
+                ? findCase(switchStatement.getBody(), fullId) : null;
+        if (label == null) {
+            return;
+        }
+        PsiStatement next = PsiTreeUtil.getNextSiblingOfType(label, PsiStatement.class);
+        if (next instanceof PsiBreakStatement) {
+            next.delete();
+            label.delete();
+        }
+    }
+
+    private static PsiSwitchStatement findSwitch(PsiClass holder, String methodName) {
+        for (PsiMethod method : holder.findMethodsByName(methodName, false)) {
+            if (method.getParameterList().getParametersCount() != 1 || method.getBody() == null) {
+                continue;
+            }
+            for (PsiStatement statement : method.getBody().getStatements()) {
+                if (statement instanceof PsiSwitchStatement) {
+                    return (PsiSwitchStatement) statement;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PsiSwitchLabelStatement findCase(PsiCodeBlock body, String fullId) {
+        for (PsiStatement statement : body.getStatements()) {
+            if (statement instanceof PsiSwitchLabelStatement) {
+                PsiExpression value = ((PsiSwitchLabelStatement) statement).getCaseValue();
+                if (value != null && fullId.equals(value.getText())) {
+                    return (PsiSwitchLabelStatement) statement;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static PsiCodeBlock getMethodBody(PsiClass psiClass, String name) {
+        PsiMethod[] methods = psiClass.findMethodsByName(name, false);
+        return methods.length > 0 ? methods[0].getBody() : null;
+    }
+
+    private static PsiAssignmentExpression getAssignment(PsiStatement statement) {
+        if (!(statement instanceof PsiExpressionStatement)) {
+            return null;
+        }
+        PsiExpression expression = ((PsiExpressionStatement) statement).getExpression();
+        return expression instanceof PsiAssignmentExpression ? (PsiAssignmentExpression) expression : null;
+    }
+
+    /**
+     * ID argument of view.findViewById(id) or findViewByPath(view, id, path...)
+     */
+    private static PsiExpression getBoundId(PsiExpression expression) {
+        while (expression instanceof PsiTypeCastExpression || expression instanceof PsiParenthesizedExpression) {
+            if (expression instanceof PsiTypeCastExpression) {
+                expression = ((PsiTypeCastExpression) expression).getOperand();
+            } else {
+                expression = ((PsiParenthesizedExpression) expression).getExpression();
+            }
+        }
+        if (!(expression instanceof PsiMethodCallExpression)) {
+            return null;
+        }
+        PsiMethodCallExpression call = (PsiMethodCallExpression) expression;
+        String name = call.getMethodExpression().getReferenceName();
+        PsiExpression[] arguments = call.getArgumentList().getExpressions();
+        if ("findViewById".equals(name) && arguments.length == 1) {
+            return arguments[0];
+        }
+        if (FIND_VIEW_BY_PATH.equals(name) && arguments.length >= 2) {
+            return arguments[1];
+        }
+        return null;
+    }
+
+    private static PsiField getField(PsiClass holder, PsiExpression expression) {
+        if (!(expression instanceof PsiReferenceExpression)) {
+            return null;
+        }
+        PsiElement resolved = ((PsiReferenceExpression) expression).resolve();
+        if (resolved instanceof PsiField && holder.getManager().areElementsEquivalent(((PsiField) resolved).getContainingClass(), holder)) {
+            return (PsiField) resolved;
+        }
+        return null;
+    }
+}